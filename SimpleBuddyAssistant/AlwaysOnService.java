@@ -8,23 +8,41 @@ import android.app.Service;
 import android.content.Intent;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
 import android.speech.RecognitionListener;
 import android.speech.RecognizerIntent;
 import android.speech.SpeechRecognizer;
 import android.util.Log;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 
 public class AlwaysOnService extends Service implements RecognitionListener {
     private static final String TAG = "AlwaysOnService";
+    
+    /**
+     * A command to run, e.g. {@code adb shell am start-foreground-service -n
+     * com.buddy.assistant/.AlwaysOnService --es command "turn on wifi"}. Only honored on
+     * debuggable builds, since any app can start this service.
+     */
+    public static final String EXTRA_COMMAND = "command";
+    
     private SpeechRecognizer speechRecognizer;
     private boolean isListening = false;
+    private IncrementalClassifier partialClassifier;
+    private boolean wakeWordHeard = false;
+    private boolean recognizerRequested = false;
+    private boolean destroyed = false;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     @Override
     public void onCreate() {
         super.onCreate();
         try {
             Log.d(TAG, "AlwaysOnService onCreate");
+            StartupWarmup.get(this);
             createNotificationChannel();
             initializeSpeechRecognizer();
             startContinuousListening();
@@ -36,6 +54,10 @@ public class AlwaysOnService extends Service implements RecognitionListener {
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         Log.d(TAG, "AlwaysOnService onStartCommand");
+        String command = intent != null ? intent.getStringExtra(EXTRA_COMMAND) : null;
+        if (command != null && Build.IS_DEBUGGABLE) {
+            processCommand(command);
+        }
         try {
             createNotificationChannel();
             startForeground(1, createNotification());
@@ -57,7 +79,7 @@ public class AlwaysOnService extends Service implements RecognitionListener {
                 );
                 channel.setDescription("Always-on voice detection for Buddy Assistant");
                 
-                NotificationManager manager = getSystemService(NotificationManager.class);
+                NotificationManager manager = SystemServices.get(this).getNotificationManager();
                 if (manager != null) {
                     manager.createNotificationChannel(channel);
                 }
@@ -103,15 +125,28 @@ public class AlwaysOnService extends Service implements RecognitionListener {
     }
     
     private void initializeSpeechRecognizer() {
-        if (SpeechRecognizer.isRecognitionAvailable(this)) {
+        if (recognizerRequested) {
+            return;
+        }
+        recognizerRequested = true;
+        // Checking for a recognizer queries the package manager and the classifier loads the
+        // grammar, so the warm-up does both off the main thread; listening starts once it has
+        StartupWarmup.get(this).whenSpeechReady().thenAccept(classifier -> mainHandler.post(() -> {
+            if (destroyed || classifier == null) {
+                return;
+            }
+            partialClassifier = classifier;
             speechRecognizer = SpeechRecognizer.createSpeechRecognizer(this);
             speechRecognizer.setRecognitionListener(this);
-        }
+            startContinuousListening();
+        }));
     }
     
     private void startContinuousListening() {
         if (speechRecognizer != null) {
             isListening = false; // Reset listening state
+            partialClassifier.reset();
+            wakeWordHeard = false;
             
             Intent intent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
             intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
@@ -134,8 +169,13 @@ public class AlwaysOnService extends Service implements RecognitionListener {
             // Check for "hey buddy" wake word
             if (command.contains("hey buddy")) {
                 Log.d(TAG, "Wake word detected: " + command);
-                // Process the command after wake word
-                processCommand(command);
+                CommandIntent early = partialClassifier.getStableIntent();
+                if (early != null && AICommandProcessor.processCommand(CommandEngine.stripWakeWord(command)).intent == early) {
+                    Log.d(TAG, "Already sent from partial results: " + early);
+                } else {
+                    // Process the command after wake word
+                    processCommand(command);
+                }
             }
         }
         
@@ -145,13 +185,10 @@ public class AlwaysOnService extends Service implements RecognitionListener {
     
     private void processCommand(String command) {
         // Remove "hey buddy" and process the actual command
-        String actualCommand = command.replace("hey buddy", "").trim();
-        
-        // Send command to MainActivity for processing using the same action
-        Intent intent = new Intent("com.buddy.assistant.VOICE_COMMAND");
-        intent.putExtra("command", actualCommand);
-        sendBroadcast(intent);
+        String actualCommand = CommandEngine.stripWakeWord(command);
         
+        // Hand it to the shared engine in this process; it runs even with no UI showing
+        AssistantRuntime.get(this).getChannel().post(actualCommand);
         Log.d(TAG, "Sent command: " + actualCommand);
     }
     
@@ -168,9 +205,49 @@ public class AlwaysOnService extends Service implements RecognitionListener {
     @Override public void onRmsChanged(float rmsdB) {}
     @Override public void onBufferReceived(byte[] buffer) {}
     @Override public void onEndOfSpeech() {}
-    @Override public void onPartialResults(Bundle partialResults) {}
     @Override public void onEvent(int eventType, Bundle params) {}
     
+    @Override
+    public void onPartialResults(Bundle partialResults) {
+        ArrayList<String> matches = partialResults.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+        if (matches == null || matches.isEmpty()) {
+            return;
+        }
+        
+        String command = matches.get(0).toLowerCase();
+        if (!command.contains("hey buddy")) {
+            return;
+        }
+        if (!wakeWordHeard) {
+            // The rest takes hundreds of ms to recognize; meanwhile get the likely handlers ready
+            wakeWordHeard = true;
+            AssistantRuntime.get(this).prepareForCommand();
+        }
+        
+        // Send the command as soon as its intent is clear instead of waiting for the final result
+        if (partialClassifier.update(CommandEngine.stripWakeWord(command)) != null) {
+            Log.d(TAG, "Stable intent from partial results: " + partialClassifier.getStableIntent());
+            processCommand(command);
+        }
+    }
+    
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        CommandMetrics.get().dump(writer);
+        writer.println("Device state: " + DeviceStateCache.get(this).snapshot());
+        StartupWarmup.get(this).dump(writer);
+    }
+    
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        destroyed = true;
+        if (speechRecognizer != null) {
+            speechRecognizer.destroy();
+            speechRecognizer = null;
+        }
+    }
+    
     @Override
     public IBinder onBind(Intent intent) {
         return null;
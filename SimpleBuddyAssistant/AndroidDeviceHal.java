@@ -0,0 +1,336 @@
+package com.buddy.assistant;
+
+import android.app.Activity;
+import android.bluetooth.BluetoothAdapter;
+import android.content.Context;
+import android.content.Intent;
+import android.hardware.camera2.CameraAccessException;
+import android.media.AudioManager;
+import android.net.wifi.WifiManager;
+import android.provider.MediaStore;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The device's {@link DeviceHal}. State is read from {@link DeviceStateCache}, so reads
+ * are field loads; changes go to the managers held by {@link SystemServices} and to
+ * {@link TorchController}.
+ *
+ * Screens are started from the context the HAL was created with. From an activity,
+ * turning Bluetooth on is asked for with {@code startActivityForResult}, which has to
+ * happen on the main thread.
+ */
+final class AndroidDeviceHal implements DeviceHal {
+
+    private final Context mContext;
+    private final SystemServices mServices;
+    private final DeviceStateCache mState;
+
+    private final Audio mAudio = new Audio() {
+        @Override
+        public int getVolume(Stream stream) {
+            return mServices.getAudioManager().getStreamVolume(toAndroid(stream));
+        }
+
+        @Override
+        public int getMaxVolume(Stream stream) {
+            return mServices.getAudioManager().getStreamMaxVolume(toAndroid(stream));
+        }
+
+        @Override
+        public void setVolume(Stream stream, int volume) {
+            mServices.getAudioManager().setStreamVolume(toAndroid(stream), volume, 0);
+        }
+
+        @Override
+        public RingerMode getRingerMode() {
+            switch (mState.getRingerMode()) {
+                case AudioManager.RINGER_MODE_SILENT:
+                    return RingerMode.SILENT;
+                case AudioManager.RINGER_MODE_VIBRATE:
+                    return RingerMode.VIBRATE;
+                default:
+                    return RingerMode.NORMAL;
+            }
+        }
+
+        @Override
+        public void setRingerMode(RingerMode mode) {
+            int ringerMode;
+            switch (mode) {
+                case SILENT:
+                    ringerMode = AudioManager.RINGER_MODE_SILENT;
+                    break;
+                case VIBRATE:
+                    ringerMode = AudioManager.RINGER_MODE_VIBRATE;
+                    break;
+                default:
+                    ringerMode = AudioManager.RINGER_MODE_NORMAL;
+                    break;
+            }
+            mServices.getAudioManager().setRingerMode(ringerMode);
+            mState.onRingerModeSet(ringerMode);
+        }
+    };
+
+    private final Torch mTorch = new Torch() {
+        @Override
+        public boolean hasFlash() {
+            try {
+                return TorchController.get(mContext).hasFlash();
+            } catch (CameraAccessException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public boolean isOn() {
+            return mState.isTorchOn();
+        }
+
+        @Override
+        public boolean setOn(boolean on) {
+            try {
+                return TorchController.get(mContext).setTorch(on);
+            } catch (CameraAccessException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void startStrobe() {
+            try {
+                TorchController.get(mContext).startStrobe();
+            } catch (CameraAccessException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void startSos() {
+            try {
+                TorchController.get(mContext).startSos();
+            } catch (CameraAccessException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    };
+
+    private final Wifi mWifi = new Wifi() {
+        @Override
+        public boolean isAvailable() {
+            return mState.hasWifi();
+        }
+
+        @Override
+        public RadioState getState() {
+            switch (mState.getWifiState()) {
+                case WifiManager.WIFI_STATE_ENABLED:
+                    return RadioState.ON;
+                case WifiManager.WIFI_STATE_ENABLING:
+                    return RadioState.TURNING_ON;
+                case WifiManager.WIFI_STATE_DISABLING:
+                    return RadioState.TURNING_OFF;
+                default:
+                    return RadioState.OFF;
+            }
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            mServices.getWifiManager().setWifiEnabled(enabled);
+        }
+    };
+
+    private final Bluetooth mBluetooth = new Bluetooth() {
+        @Override
+        public boolean isAvailable() {
+            return mState.hasBluetooth();
+        }
+
+        @Override
+        public RadioState getState() {
+            switch (mState.getBluetoothState()) {
+                case BluetoothAdapter.STATE_ON:
+                    return RadioState.ON;
+                case BluetoothAdapter.STATE_TURNING_ON:
+                    return RadioState.TURNING_ON;
+                case BluetoothAdapter.STATE_TURNING_OFF:
+                    return RadioState.TURNING_OFF;
+                default:
+                    return RadioState.OFF;
+            }
+        }
+
+        @Override
+        public void requestEnable() {
+            Intent intent = new Intent(BluetoothAdapter.ACTION_REQUEST_ENABLE);
+            if (mContext instanceof Activity) {
+                ((Activity) mContext).startActivityForResult(intent, 1);
+            } else {
+                startActivity(intent);
+            }
+        }
+
+        @Override
+        public boolean requestEnableNeedsMainThread() {
+            // startActivityForResult belongs to the Activity and must come from its thread
+            return mContext instanceof Activity;
+        }
+
+        @Override
+        public void disable() {
+            mServices.getBluetoothAdapter().disable();
+        }
+    };
+
+    private final Settings mSettings = new Settings() {
+        @Override
+        public int get(Setting setting) {
+            switch (setting) {
+                case SCREEN_BRIGHTNESS:
+                    return mState.getBrightness();
+                case SCREEN_BRIGHTNESS_MODE:
+                    return mState.isAutoBrightness() ? 1 : 0;
+                default:
+                    return mState.isAutoRotate() ? 1 : 0;
+            }
+        }
+
+        @Override
+        public void put(Setting setting, int value) {
+            String name = toAndroid(setting);
+            if (android.provider.Settings.System.putInt(mContext.getContentResolver(), name, value)) {
+                mState.onSystemSettingPut(name, value);
+            }
+        }
+    };
+
+    private final Screens mScreens = new Screens() {
+        @Override
+        public boolean open(Screen screen) {
+            Intent intent = toIntent(screen);
+            if (intent == null) {
+                return false;
+            }
+            startActivity(intent);
+            return true;
+        }
+
+        @Override
+        public void prepare(Screen screen) {
+            // The other screens are fixed intents
+            if (screen == Screen.CAMERA_APP) {
+                LaunchTargetCache.get(mContext).handlesIntent(LaunchTargetCache.Capability.CAMERA);
+            }
+        }
+
+        @Override
+        public void takeScreenshot() {
+            mContext.sendBroadcast(new Intent("android.intent.action.SCREENSHOT"));
+        }
+    };
+
+    AndroidDeviceHal(Context context) {
+        mContext = context;
+        mServices = SystemServices.get(context);
+        mState = DeviceStateCache.get(context);
+    }
+
+    @Override
+    public Audio audio() {
+        return mAudio;
+    }
+
+    @Override
+    public Torch torch() {
+        return mTorch;
+    }
+
+    @Override
+    public Wifi wifi() {
+        return mWifi;
+    }
+
+    @Override
+    public Bluetooth bluetooth() {
+        return mBluetooth;
+    }
+
+    @Override
+    public Settings settings() {
+        return mSettings;
+    }
+
+    @Override
+    public Screens screens() {
+        return mScreens;
+    }
+
+    @Override
+    public CompletableFuture<Void> await(BooleanSupplier condition, long timeoutMs, String what) {
+        return mState.await(condition, timeoutMs, what);
+    }
+
+    private void startActivity(Intent intent) {
+        // The HAL may hold a service context, which needs a task to launch into
+        if (!(mContext instanceof Activity)) {
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        }
+        mContext.startActivity(intent);
+    }
+
+    private static int toAndroid(Stream stream) {
+        switch (stream) {
+            case RING:
+                return AudioManager.STREAM_RING;
+            case ALARM:
+                return AudioManager.STREAM_ALARM;
+            default:
+                return AudioManager.STREAM_MUSIC;
+        }
+    }
+
+    private static String toAndroid(Setting setting) {
+        switch (setting) {
+            case SCREEN_BRIGHTNESS:
+                return android.provider.Settings.System.SCREEN_BRIGHTNESS;
+            case SCREEN_BRIGHTNESS_MODE:
+                return android.provider.Settings.System.SCREEN_BRIGHTNESS_MODE;
+            default:
+                return android.provider.Settings.System.ACCELEROMETER_ROTATION;
+        }
+    }
+
+    // Null if nothing on the device shows the screen
+    private Intent toIntent(Screen screen) {
+        switch (screen) {
+            case DND_SETTINGS:
+                return new Intent(android.provider.Settings.ACTION_NOTIFICATION_POLICY_ACCESS_SETTINGS);
+            case MOBILE_DATA_SETTINGS:
+                return new Intent(android.provider.Settings.ACTION_DATA_ROAMING_SETTINGS);
+            case WIRELESS_SETTINGS:
+                return new Intent(android.provider.Settings.ACTION_WIRELESS_SETTINGS);
+            case AIRPLANE_MODE_SETTINGS:
+                return new Intent(android.provider.Settings.ACTION_AIRPLANE_MODE_SETTINGS);
+            case NFC_SETTINGS:
+                return new Intent(android.provider.Settings.ACTION_NFC_SETTINGS);
+            case LOCATION_SETTINGS:
+                return new Intent(android.provider.Settings.ACTION_LOCATION_SOURCE_SETTINGS);
+            case DISPLAY_SETTINGS:
+                return new Intent(android.provider.Settings.ACTION_DISPLAY_SETTINGS);
+            case BATTERY_SAVER_SETTINGS:
+                return new Intent(android.provider.Settings.ACTION_BATTERY_SAVER_SETTINGS);
+            case WALLPAPER_PICKER:
+                return Intent.createChooser(new Intent(Intent.ACTION_SET_WALLPAPER), "Choose wallpaper");
+            case CAMERA_APP:
+                return LaunchTargetCache.get(mContext).newIntent(LaunchTargetCache.Capability.CAMERA);
+            case PHOTO_CAPTURE:
+                return new Intent(MediaStore.ACTION_IMAGE_CAPTURE);
+            case VIDEO_CAPTURE:
+                return new Intent(MediaStore.ACTION_VIDEO_CAPTURE);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.buddy.assistant;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Finds launcher activities by their spoken name.
+ *
+ * The index maps normalized label words to apps, so "open spotify", "open spot" and
+ * "open calculater" all find their app without a package name. It is built on the
+ * {@link BackgroundThread}, a page of labels per message so other background work isn't
+ * held up, and each package install, update or removal only requeries that package. Lookups read an immutable snapshot and never block on a rebuild.
+ */
+public final class AppLabelIndex implements PackageChangeMonitor.Listener {
+    private static final String TAG = "AppLabelIndex";
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    // Per query word, a whole-word match beats a prefix, which beats a near miss
+    private static final int SCORE_EXACT = 3;
+    private static final int SCORE_PREFIX = 2;
+    private static final int SCORE_FUZZY = 1;
+
+    // Labels loaded per message; each can mean reading an app's resources
+    private static final int PAGE_SIZE = 50;
+
+    private static AppLabelIndex sInstance;
+
+    private final PackageManager mPackageManager;
+    private final Handler mHandler;
+    private volatile Snapshot mSnapshot;
+
+    // Owned by the background thread
+    private boolean mBuilding;
+    private final Set<String> mChangedDuringBuild = new HashSet<>();
+
+    /** One launchable activity. */
+    public static final class Entry {
+        private final String mLabel;
+        private final ComponentName mComponent;
+        final String[] words;
+
+        Entry(String label, ComponentName component) {
+            mLabel = label;
+            mComponent = component;
+            words = tokenize(label);
+        }
+
+        public String getLabel() {
+            return mLabel;
+        }
+
+        public ComponentName getComponent() {
+            return mComponent;
+        }
+    }
+
+    private static final class Snapshot {
+        final List<Entry> entries;
+        // Whole normalized label, and the label with its spaces removed ("you tube" -> "youtube")
+        final Map<String, Entry> byLabel = new HashMap<>();
+        // Sorted label words and the apps containing each, for binary-searched prefix lookup
+        final String[] words;
+        final Entry[][] wordEntries;
+
+        Snapshot(List<Entry> entries) {
+            this.entries = entries;
+            TreeMap<String, List<Entry>> index = new TreeMap<>();
+            for (Entry entry : entries) {
+                String joined = String.join(" ", entry.words);
+                byLabel.putIfAbsent(joined, entry);
+                byLabel.putIfAbsent(joined.replace(" ", ""), entry);
+                for (String word : entry.words) {
+                    index.computeIfAbsent(word, w -> new ArrayList<>()).add(entry);
+                }
+            }
+            words = index.keySet().toArray(new String[0]);
+            wordEntries = new Entry[words.length][];
+            int i = 0;
+            for (List<Entry> list : index.values()) {
+                wordEntries[i++] = list.toArray(new Entry[0]);
+            }
+        }
+    }
+
+    private AppLabelIndex(Context context) {
+        mPackageManager = context.getPackageManager();
+        mHandler = BackgroundThread.getHandler();
+        PackageChangeMonitor.get(context).addListener(this);
+        mHandler.post(this::rebuild);
+    }
+
+    /** Returns the process-wide index, starting its first build if needed. */
+    public static synchronized AppLabelIndex get(Context context) {
+        if (sInstance == null) {
+            sInstance = new AppLabelIndex(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    public boolean isReady() {
+        return mSnapshot != null;
+    }
+
+    /**
+     * Returns the app that best matches {@code spokenName}, or null if nothing matches or
+     * the index hasn't been built yet.
+     */
+    public Entry find(String spokenName) {
+        Snapshot snapshot = mSnapshot;
+        String[] query = tokenize(spokenName);
+        if (snapshot == null || query.length == 0) {
+            return null;
+        }
+
+        String joined = String.join(" ", query);
+        Entry exact = snapshot.byLabel.get(joined);
+        if (exact == null) {
+            exact = snapshot.byLabel.get(joined.replace(" ", ""));
+        }
+        if (exact != null) {
+            return exact;
+        }
+
+        Map<Entry, int[]> scores = new IdentityHashMap<>();
+        int matchedWords = 0;
+        for (String word : query) {
+            if (scoreWord(snapshot, word, scores)) {
+                matchedWords++;
+            }
+        }
+        // Most of what was said has to be in the label
+        if (matchedWords * 2 < query.length) {
+            return null;
+        }
+
+        Entry best = null;
+        int bestScore = 0;
+        for (Map.Entry<Entry, int[]> candidate : scores.entrySet()) {
+            Entry entry = candidate.getKey();
+            int score = candidate.getValue()[0];
+            // On a tie prefer the shorter label, then the alphabetically first
+            if (score > bestScore || (score == bestScore && (entry.words.length < best.words.length
+                    || (entry.words.length == best.words.length && entry.mLabel.compareTo(best.mLabel) < 0)))) {
+                best = entry;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    // Adds this query word's best score to every app it matches; returns whether any did
+    private static boolean scoreWord(Snapshot snapshot, String word, Map<Entry, int[]> scores) {
+        String[] words = snapshot.words;
+        int start = Arrays.binarySearch(words, word);
+        if (start >= 0) {
+            addScore(scores, snapshot.wordEntries[start], SCORE_EXACT);
+            return true;
+        }
+
+        boolean found = false;
+        for (int i = -start - 1; i < words.length && words[i].startsWith(word); i++) {
+            addScore(scores, snapshot.wordEntries[i], SCORE_PREFIX);
+            found = true;
+        }
+        if (found) {
+            return true;
+        }
+
+        int maxEdits = word.length() <= 4 ? 1 : 2;
+        for (int i = 0; i < words.length; i++) {
+            if (Math.abs(words[i].length() - word.length()) <= maxEdits
+                    && editDistance(word, words[i], maxEdits) <= maxEdits) {
+                addScore(scores, snapshot.wordEntries[i], SCORE_FUZZY);
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    private static void addScore(Map<Entry, int[]> scores, Entry[] entries, int score) {
+        for (Entry entry : entries) {
+            int[] total = scores.get(entry);
+            if (total == null) {
+                scores.put(entry, new int[] {score});
+            } else {
+                total[0] += score;
+            }
+        }
+    }
+
+    // Levenshtein distance, giving up with limit + 1 once every path exceeds the limit
+    private static int editDistance(String a, String b, int limit) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    @Override
+    public void onPackageChanged(String packageName) {
+        if (mBuilding) {
+            // The build has listed the apps already; the change is applied once it's done
+            mChangedDuringBuild.add(packageName);
+            return;
+        }
+        Snapshot snapshot = mSnapshot;
+        if (snapshot == null) {
+            // The first build is queued ahead of us and will see the change
+            return;
+        }
+        List<Entry> entries = new ArrayList<>(snapshot.entries.size() + 1);
+        for (Entry entry : snapshot.entries) {
+            if (!entry.getComponent().getPackageName().equals(packageName)) {
+                entries.add(entry);
+            }
+        }
+        Intent query = launcherIntent().setPackage(packageName);
+        addEntries(mPackageManager.queryIntentActivities(query, 0), entries);
+        mSnapshot = new Snapshot(entries);
+    }
+
+    private void rebuild() {
+        long start = SystemClock.elapsedRealtime();
+        List<ResolveInfo> activities = mPackageManager.queryIntentActivities(launcherIntent(), 0);
+        mBuilding = true;
+        loadPage(activities, 0, new ArrayList<>(activities.size()), start);
+    }
+
+    // Loads the labels of one page of activities, then queues the next so other
+    // background work can run in between
+    private void loadPage(List<ResolveInfo> activities, int from, List<Entry> entries, long startTime) {
+        int to = Math.min(from + PAGE_SIZE, activities.size());
+        addEntries(activities.subList(from, to), entries);
+        if (to < activities.size()) {
+            mHandler.post(() -> loadPage(activities, to, entries, startTime));
+            return;
+        }
+
+        mSnapshot = new Snapshot(entries);
+        mBuilding = false;
+        Log.d(TAG, "Indexed " + entries.size() + " apps in " + (SystemClock.elapsedRealtime() - startTime) + "ms");
+        for (String packageName : mChangedDuringBuild) {
+            onPackageChanged(packageName);
+        }
+        mChangedDuringBuild.clear();
+    }
+
+    private void addEntries(List<ResolveInfo> activities, List<Entry> entries) {
+        for (ResolveInfo info : activities) {
+            CharSequence label = info.loadLabel(mPackageManager);
+            if (label != null) {
+                entries.add(new Entry(label.toString(),
+                        new ComponentName(info.activityInfo.packageName, info.activityInfo.name)));
+            }
+        }
+    }
+
+    private static Intent launcherIntent() {
+        Intent intent = new Intent(Intent.ACTION_MAIN);
+        intent.addCategory(Intent.CATEGORY_LAUNCHER);
+        return intent;
+    }
+
+    // "Google Maps" -> [google, maps]; "Café" -> [cafe]
+    static String[] tokenize(String text) {
+        String folded = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        folded = MARKS.matcher(folded).replaceAll("");
+        folded = NON_WORD.matcher(folded).replaceAll(" ").trim();
+        return folded.isEmpty() ? new String[0] : folded.split(" ");
+    }
+}
@@ -0,0 +1,205 @@
+package com.buddy.assistant;
+
+import android.content.Context;
+import android.content.Intent;
+import java.util.Map;
+
+/**
+ * Handles app launching, navigation, weather, translation, notes, lists and smart home.
+ */
+class AppsHandler extends BaseCommandHandler {
+
+    AppsHandler(Context context) {
+        super(context);
+    }
+
+    @Override
+    public String handle(CommandIntent intent, Map<String, String> params) {
+        switch (intent) {
+            case OPEN_APP:
+                return openApp(params.get("app_name"));
+            case NAVIGATE_TO:
+                return navigateTo(params.get("location"));
+            case COMMUTE_TIME:
+                return getCommuteTime();
+            case WEATHER_CURRENT:
+                return getCurrentWeather();
+            case WEATHER_FORECAST:
+                return getWeatherForecast();
+            case TRANSLATE:
+                return translateText(params.get("text"));
+            case SMART_HOME_CONTROL:
+                return controlSmartHome();
+            case ADD_NOTE:
+                return addNote(params.get("note"));
+            case ADD_TO_LIST:
+                return addToList(params.get("item"));
+            default:
+                return "❌ AI Command not implemented: " + intent;
+        }
+    }
+    
+    @Override
+    public void prepare(CommandIntent intent) {
+        if (intent == CommandIntent.NAVIGATE_TO) {
+            LaunchTargetCache.get(mContext).handlesIntent(LaunchTargetCache.Capability.MAPS);
+        }
+    }
+    
+    private String openApp(String appName) {
+        try {
+            if (appName == null || appName.isEmpty()) {
+                return "❌ Please specify which app to open";
+            }
+            
+            // Look the name up among installed launcher apps
+            AppLabelIndex.Entry app = AppLabelIndex.get(mContext).find(appName);
+            if (app != null) {
+                Intent launch = new Intent(Intent.ACTION_MAIN);
+                launch.addCategory(Intent.CATEGORY_LAUNCHER);
+                launch.setComponent(app.getComponent());
+                startActivity(launch);
+                return "✅ Opening " + app.getLabel();
+            }
+            
+            // Index not built yet or no match: treat the name as a package
+            Intent intent = getPackageManager().getLaunchIntentForPackage(appName);
+            if (intent == null) {
+                // Try common app names
+                String[] commonApps = {
+                    "com.android.chrome", "com.google.android.apps.maps", "com.android.calculator2",
+                    "com.android.calendar", "com.android.contacts", "com.android.gallery3d",
+                    "com.android.music", "com.android.settings", "com.android.vending"
+                };
+                
+                for (String packageName : commonApps) {
+                    if (packageName.contains(appName.toLowerCase())) {
+                        intent = getPackageManager().getLaunchIntentForPackage(packageName);
+                        if (intent != null) break;
+                    }
+                }
+            }
+            
+            if (intent != null) {
+                startActivity(intent);
+                return "✅ Opening " + appName;
+            } else {
+                return "❌ App not found: " + appName;
+            }
+        } catch (Exception e) {
+            return "❌ Could not open app: " + e.getMessage();
+        }
+    }
+    
+    private String navigateTo(String location) {
+        try {
+            if (location == null || location.isEmpty()) {
+                return "❌ Please specify where to navigate";
+            }
+            
+            LaunchTargetCache targets = LaunchTargetCache.get(mContext);
+            Intent intent = targets.newIntent(LaunchTargetCache.Capability.MAPS);
+            if (intent == null) {
+                return "❌ No maps app found";
+            }
+            if (!targets.handlesIntent(LaunchTargetCache.Capability.MAPS)) {
+                startActivity(intent);
+                return "✅ Opening maps app";
+            }
+            intent.setData(android.net.Uri.parse("geo:0,0?q=" + location));
+            startActivity(intent);
+            return "✅ Navigating to " + location;
+        } catch (Exception e) {
+            return "❌ Could not navigate: " + e.getMessage();
+        }
+    }
+    
+    private String getCommuteTime() {
+        try {
+            Intent intent = new Intent(Intent.ACTION_VIEW);
+            intent.setData(android.net.Uri.parse("google.navigation:q=work"));
+            startActivity(intent);
+            return "✅ Getting commute time to work";
+        } catch (Exception e) {
+            return "❌ Could not get commute time: " + e.getMessage();
+        }
+    }
+    
+    // Navigation & Information
+    private String getCurrentWeather() {
+        try {
+            Intent intent = new Intent(Intent.ACTION_VIEW);
+            intent.setData(android.net.Uri.parse("weather://"));
+            startActivity(intent);
+            return "✅ Opening weather app";
+        } catch (Exception e) {
+            return "❌ Could not open weather: " + e.getMessage();
+        }
+    }
+    
+    private String getWeatherForecast() {
+        try {
+            Intent intent = new Intent(Intent.ACTION_VIEW);
+            intent.setData(android.net.Uri.parse("weather://forecast"));
+            startActivity(intent);
+            return "✅ Opening weather forecast";
+        } catch (Exception e) {
+            return "❌ Could not open weather forecast: " + e.getMessage();
+        }
+    }
+    
+    private String translateText(String text) {
+        try {
+            if (text == null || text.isEmpty()) {
+                return "❌ Please specify text to translate";
+            }
+            
+            Intent intent = new Intent(Intent.ACTION_VIEW);
+            intent.setData(android.net.Uri.parse("translate://" + text));
+            startActivity(intent);
+            return "✅ Translating: " + text;
+        } catch (Exception e) {
+            return "❌ Could not translate: " + e.getMessage();
+        }
+    }
+    
+    // Lifestyle/Automation
+    private String controlSmartHome() {
+        try {
+            Intent intent = new Intent(Intent.ACTION_MAIN);
+            intent.addCategory(Intent.CATEGORY_APP_MAPS);
+            startActivity(intent);
+            return "✅ Opening smart home controls";
+        } catch (Exception e) {
+            return "❌ Could not access smart home: " + e.getMessage();
+        }
+    }
+    
+    private String addNote(String note) {
+        try {
+            Intent intent = new Intent(Intent.ACTION_INSERT);
+            intent.setType("vnd.android.cursor.dir/note");
+            if (note != null && !note.isEmpty()) {
+                intent.putExtra(Intent.EXTRA_TEXT, note);
+            }
+            startActivity(intent);
+            return "✅ Opening notes app" + (note != null ? " with note: " + note : "");
+        } catch (Exception e) {
+            return "❌ Could not open notes: " + e.getMessage();
+        }
+    }
+    
+    private String addToList(String item) {
+        try {
+            Intent intent = new Intent(Intent.ACTION_INSERT);
+            intent.setType("vnd.android.cursor.dir/list");
+            if (item != null && !item.isEmpty()) {
+                intent.putExtra(Intent.EXTRA_TEXT, item);
+            }
+            startActivity(intent);
+            return "✅ Opening list app" + (item != null ? " with item: " + item : "");
+        } catch (Exception e) {
+            return "❌ Could not open list app: " + e.getMessage();
+        }
+    }
+}
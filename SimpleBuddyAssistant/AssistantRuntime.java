@@ -0,0 +1,87 @@
+package com.buddy.assistant;
+
+import android.content.Context;
+import android.os.Trace;
+import android.util.Log;
+import java.util.List;
+
+/**
+ * The command engine and {@link CommandChannel} shared by the whole process, used by the
+ * UI and the always-on listener alike so their commands run in one order. Created on
+ * first use and kept for the life of the process, so commands run with no UI showing.
+ */
+public final class AssistantRuntime {
+    private static final String TAG = "AssistantRuntime";
+
+    // Recognized speech arrives a few commands at a time at most
+    private static final int CHANNEL_CAPACITY = 16;
+    // Long enough to catch the always-on listener and a tap firing together, shorter than
+    // it takes to say a command twice
+    private static final long DEDUPE_WINDOW_MS = 2000;
+    // A user's usual commands; preparing one that is already warm costs next to nothing
+    private static final int PREPARED_INTENTS = 4;
+
+    private static AssistantRuntime sInstance;
+
+    private final IntentPriors mPriors;
+    private final IntentDispatcher mDispatcher;
+    private final CommandExecutor mExecutor;
+    private final CommandEngine mEngine;
+    private final CommandChannel mChannel;
+
+    private AssistantRuntime(Context context) {
+        mPriors = IntentPriors.getInstance(context.getFilesDir());
+        mDispatcher = new IntentDispatcher(new DeviceHandlerFactory(context));
+        mExecutor = new CommandExecutor(mDispatcher);
+        mEngine = new CommandEngine(mExecutor, mPriors,
+                RoutineStore.getInstance(context.getFilesDir()),
+                CommandHistoryLog.getInstance(context.getFilesDir()), new KeywordFallback(context));
+        // The newest command is the one the user is waiting for
+        mChannel = new CommandChannel(mEngine, CHANNEL_CAPACITY,
+                CommandChannel.OverflowPolicy.DROP_OLDEST, DEDUPE_WINDOW_MS);
+    }
+
+    public static synchronized AssistantRuntime get(Context context) {
+        if (sInstance == null) {
+            sInstance = new AssistantRuntime(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    public CommandEngine getEngine() {
+        return mEngine;
+    }
+
+    public CommandChannel getChannel() {
+        return mChannel;
+    }
+
+    /**
+     * Gets the handlers of the most used intents ready for a command that is on its way,
+     * e.g. once the wake word is heard and the rest is still being recognized, so the
+     * command finds its camera, launch target or contacts already looked up. Returns at
+     * once; the lookups run on the {@link BackgroundThread}, ahead of what is queued there.
+     */
+    public void prepareForCommand() {
+        List<CommandIntent> intents = mPriors.getSnapshot().getMostUsed(PREPARED_INTENTS);
+        if (intents.isEmpty()) {
+            return;
+        }
+        BackgroundThread.getHandler().postAtFrontOfQueue(() -> {
+            long start = System.nanoTime();
+            Trace.beginSection("Prepare for command");
+            try {
+                for (CommandIntent intent : intents) {
+                    try {
+                        mDispatcher.prepare(intent);
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "Could not prepare " + intent + ": " + e.getMessage());
+                    }
+                }
+            } finally {
+                Trace.endSection();
+            }
+            Log.d(TAG, "Prepared " + intents + " in " + (System.nanoTime() - start) / 1000 + "us");
+        });
+    }
+}
@@ -0,0 +1,210 @@
+package com.buddy.assistant;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handles stream volumes, ringer modes and Do Not Disturb.
+ */
+class AudioHandler extends HalCommandHandler {
+
+    private static final long RINGER_TIMEOUT_MS = 2000;
+
+    AudioHandler(DeviceHal hal) {
+        super(hal);
+    }
+
+    @Override
+    public String handle(CommandIntent intent, Map<String, String> params) {
+        switch (intent) {
+            case VOLUME_UP:
+                return increaseVolume();
+            case VOLUME_DOWN:
+                return decreaseVolume();
+            case VOLUME_MAX:
+                return setMaxVolume();
+            case RINGTONE_VOLUME_UP:
+                return increaseRingtoneVolume();
+            case RINGTONE_VOLUME_DOWN:
+                return decreaseRingtoneVolume();
+            case ALARM_VOLUME_UP:
+                return increaseAlarmVolume();
+            case ALARM_VOLUME_DOWN:
+                return decreaseAlarmVolume();
+            case SOUND_RING:
+                return setRingMode();
+            case SOUND_VIBRATE:
+                return setVibrateMode();
+            case SOUND_SILENT:
+                return setSilentMode();
+            case DND_ON:
+                return enableDoNotDisturb();
+            case DND_OFF:
+                return disableDoNotDisturb();
+            default:
+                return "❌ AI Command not implemented: " + intent;
+        }
+    }
+    
+    @Override
+    public CompletableFuture<String> handleAsync(CommandIntent intent, Map<String, String> params) {
+        switch (intent) {
+            case SOUND_RING:
+                return whenRingerMode(handle(intent, params), DeviceHal.RingerMode.NORMAL);
+            case SOUND_VIBRATE:
+                return whenRingerMode(handle(intent, params), DeviceHal.RingerMode.VIBRATE);
+            case SOUND_SILENT:
+                return whenRingerMode(handle(intent, params), DeviceHal.RingerMode.SILENT);
+            default:
+                return super.handleAsync(intent, params);
+        }
+    }
+    
+    private CompletableFuture<String> whenRingerMode(String response, DeviceHal.RingerMode mode) {
+        DeviceHal.Audio audio = mHal.audio();
+        return whenState(response, response, () -> audio.getRingerMode() == mode,
+                RINGER_TIMEOUT_MS, "Ringer mode did not change");
+    }
+    
+    private String increaseVolume() {
+        try {
+            DeviceHal.Audio audio = mHal.audio();
+            int currentVolume = audio.getVolume(DeviceHal.Stream.MUSIC);
+            int maxVolume = audio.getMaxVolume(DeviceHal.Stream.MUSIC);
+            int newVolume = Math.min(currentVolume + 2, maxVolume);
+            audio.setVolume(DeviceHal.Stream.MUSIC, newVolume);
+            return "✅ Volume increased";
+        } catch (Exception e) {
+            return "❌ Could not increase volume: " + e.getMessage();
+        }
+    }
+    
+    private String decreaseVolume() {
+        try {
+            DeviceHal.Audio audio = mHal.audio();
+            int currentVolume = audio.getVolume(DeviceHal.Stream.MUSIC);
+            int newVolume = Math.max(currentVolume - 2, 0);
+            audio.setVolume(DeviceHal.Stream.MUSIC, newVolume);
+            return "✅ Volume decreased";
+        } catch (Exception e) {
+            return "❌ Could not decrease volume: " + e.getMessage();
+        }
+    }
+    
+    private String setMaxVolume() {
+        try {
+            DeviceHal.Audio audio = mHal.audio();
+            audio.setVolume(DeviceHal.Stream.MUSIC, audio.getMaxVolume(DeviceHal.Stream.MUSIC));
+            return "✅ Volume set to maximum";
+        } catch (Exception e) {
+            return "❌ Could not set max volume: " + e.getMessage();
+        }
+    }
+    
+    private String increaseRingtoneVolume() {
+        try {
+            DeviceHal.Audio audio = mHal.audio();
+            int currentVolume = audio.getVolume(DeviceHal.Stream.RING);
+            int maxVolume = audio.getMaxVolume(DeviceHal.Stream.RING);
+            int newVolume = Math.min(currentVolume + 2, maxVolume);
+            audio.setVolume(DeviceHal.Stream.RING, newVolume);
+            return "✅ Ringtone volume increased";
+        } catch (Exception e) {
+            return "❌ Could not increase ringtone volume: " + e.getMessage();
+        }
+    }
+    
+    private String decreaseRingtoneVolume() {
+        try {
+            DeviceHal.Audio audio = mHal.audio();
+            int currentVolume = audio.getVolume(DeviceHal.Stream.RING);
+            int newVolume = Math.max(currentVolume - 2, 0);
+            audio.setVolume(DeviceHal.Stream.RING, newVolume);
+            return "✅ Ringtone volume decreased";
+        } catch (Exception e) {
+            return "❌ Could not decrease ringtone volume: " + e.getMessage();
+        }
+    }
+    
+    private String increaseAlarmVolume() {
+        try {
+            DeviceHal.Audio audio = mHal.audio();
+            int currentVolume = audio.getVolume(DeviceHal.Stream.ALARM);
+            int maxVolume = audio.getMaxVolume(DeviceHal.Stream.ALARM);
+            int newVolume = Math.min(currentVolume + 2, maxVolume);
+            audio.setVolume(DeviceHal.Stream.ALARM, newVolume);
+            return "✅ Alarm volume increased";
+        } catch (Exception e) {
+            return "❌ Could not increase alarm volume: " + e.getMessage();
+        }
+    }
+    
+    private String decreaseAlarmVolume() {
+        try {
+            DeviceHal.Audio audio = mHal.audio();
+            int currentVolume = audio.getVolume(DeviceHal.Stream.ALARM);
+            int newVolume = Math.max(currentVolume - 2, 0);
+            audio.setVolume(DeviceHal.Stream.ALARM, newVolume);
+            return "✅ Alarm volume decreased";
+        } catch (Exception e) {
+            return "❌ Could not decrease alarm volume: " + e.getMessage();
+        }
+    }
+    
+    private String setRingMode() {
+        try {
+            DeviceHal.Audio audio = mHal.audio();
+            if (audio.getRingerMode() == DeviceHal.RingerMode.NORMAL) {
+                return "✅ Already in ring mode";
+            }
+            audio.setRingerMode(DeviceHal.RingerMode.NORMAL);
+            return "✅ Set to ring mode";
+        } catch (Exception e) {
+            return "❌ Could not set ring mode: " + e.getMessage();
+        }
+    }
+    
+    private String setVibrateMode() {
+        try {
+            DeviceHal.Audio audio = mHal.audio();
+            if (audio.getRingerMode() == DeviceHal.RingerMode.VIBRATE) {
+                return "✅ Already in vibrate mode";
+            }
+            audio.setRingerMode(DeviceHal.RingerMode.VIBRATE);
+            return "✅ Set to vibrate mode";
+        } catch (Exception e) {
+            return "❌ Could not set vibrate mode: " + e.getMessage();
+        }
+    }
+    
+    private String setSilentMode() {
+        try {
+            DeviceHal.Audio audio = mHal.audio();
+            if (audio.getRingerMode() == DeviceHal.RingerMode.SILENT) {
+                return "✅ Already in silent mode";
+            }
+            audio.setRingerMode(DeviceHal.RingerMode.SILENT);
+            return "✅ Set to silent mode";
+        } catch (Exception e) {
+            return "❌ Could not set silent mode: " + e.getMessage();
+        }
+    }
+    
+    private String enableDoNotDisturb() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.DND_SETTINGS);
+            return "✅ Opening Do Not Disturb settings";
+        } catch (Exception e) {
+            return "❌ Could not access Do Not Disturb: " + e.getMessage();
+        }
+    }
+    
+    private String disableDoNotDisturb() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.DND_SETTINGS);
+            return "✅ Opening Do Not Disturb settings";
+        } catch (Exception e) {
+            return "❌ Could not access Do Not Disturb: " + e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.buddy.assistant;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+
+/**
+ * Common plumbing for handlers that act on the device through a {@link Context}, rather
+ * than a {@link DeviceHal}.
+ */
+abstract class BaseCommandHandler implements CommandHandler {
+
+    protected final Context mContext;
+
+    protected BaseCommandHandler(Context context) {
+        mContext = context;
+    }
+
+    protected void startActivity(Intent intent) {
+        // Handlers may run with a service context, which needs a task to launch into
+        if (!(mContext instanceof Activity)) {
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        }
+        mContext.startActivity(intent);
+    }
+
+    protected void sendBroadcast(Intent intent) {
+        mContext.sendBroadcast(intent);
+    }
+
+    protected PackageManager getPackageManager() {
+        return mContext.getPackageManager();
+    }
+}
@@ -1,34 +1,93 @@
 package com.buddy.assistant;
 
 import android.app.Service;
-import android.content.Context;
 import android.content.Intent;
-import android.media.AudioManager;
-import android.net.wifi.WifiManager;
 import android.os.IBinder;
-import android.provider.Settings;
+import android.os.RemoteException;
 import android.util.Log;
-import android.widget.Toast;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class BuddyAssistantService extends Service {
     
     private static final String TAG = "BuddyAssistant";
-    private Context mContext;
+    
+    /** Needed to bind to the service and submit commands through {@link IBuddyAssistant}. */
+    public static final String PERMISSION_SUBMIT_COMMAND = "com.buddy.assistant.permission.SUBMIT_COMMAND";
+    
+    private static final int MAX_BATCH_SIZE = 50;
+    
     private boolean mIsListening = false;
+    private CommandChannel mChannel;
     
-    public BuddyAssistantService() {
-        mContext = this;
-    }
+    private final IBuddyAssistant.Stub mBinder = new IBuddyAssistant.Stub() {
+        @Override
+        public void submitCommand(String command, ICommandCallback callback) {
+            enforceCallingOrSelfPermission(PERMISSION_SUBMIT_COMMAND, "submitCommand");
+            if (command == null || callback == null) {
+                throw new IllegalArgumentException("command and callback are required");
+            }
+            run(command).thenAccept(response -> {
+                try {
+                    callback.onResult(command, response);
+                } catch (RemoteException e) {
+                    Log.w(TAG, "Client went away before the response to " + command);
+                }
+            });
+        }
+        
+        @Override
+        public void submitBatch(List<String> commands, ICommandCallback callback) {
+            enforceCallingOrSelfPermission(PERMISSION_SUBMIT_COMMAND, "submitBatch");
+            if (commands == null || callback == null) {
+                throw new IllegalArgumentException("commands and callback are required");
+            }
+            if (commands.size() > MAX_BATCH_SIZE) {
+                throw new IllegalArgumentException("Batches are limited to " + MAX_BATCH_SIZE + " commands");
+            }
+            
+            // Each command starts once the previous one has taken effect, e.g. "wifi on" before "wifi off"
+            CompletableFuture<List<String>> batch = CompletableFuture.completedFuture(new ArrayList<>(commands.size()));
+            for (String command : commands) {
+                batch = batch.thenCompose(responses -> run(command).thenApply(response -> {
+                    responses.add(response);
+                    return responses;
+                }));
+            }
+            batch.thenAccept(responses -> {
+                try {
+                    callback.onBatchResult(responses);
+                } catch (RemoteException e) {
+                    Log.w(TAG, "Client went away before the responses to a batch of " + responses.size());
+                }
+            });
+        }
+    };
     
     @Override
     public void onCreate() {
         super.onCreate();
+        StartupWarmup.get(this);
+        // Bound clients share the UI's and the always-on listener's queue, so the hardware
+        // sees one ordered stream of commands
+        mChannel = AssistantRuntime.get(this).getChannel();
         Log.i(TAG, "Buddy Assistant Service created");
     }
     
+    // adb shell dumpsys activity service com.buddy.assistant/.BuddyAssistantService
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        CommandMetrics.get().dump(writer);
+        writer.println("Device state: " + DeviceStateCache.get(this).snapshot());
+        StartupWarmup.get(this).dump(writer);
+    }
+    
     @Override
     public IBinder onBind(Intent intent) {
-        return null;
+        return mBinder;
     }
     
     public void startListening() {
@@ -41,157 +100,9 @@ public class BuddyAssistantService extends Service {
         Log.i(TAG, "Stopped listening for voice commands");
     }
     
-    public String processCommand(String command) {
-        Log.i(TAG, "Processing command: " + command);
-        
-        String lowerCommand = command.toLowerCase().trim();
-        
-        // Remove "hey buddy" if present
-        if (lowerCommand.startsWith("hey buddy")) {
-            lowerCommand = lowerCommand.substring(9).trim();
-        }
-        
-        try {
-            if (lowerCommand.contains("alarm")) {
-                return setAlarm(lowerCommand);
-            } else if (lowerCommand.contains("flashlight") || lowerCommand.contains("torch")) {
-                return toggleFlashlight(lowerCommand);
-            } else if (lowerCommand.contains("bluetooth")) {
-                return toggleBluetooth(lowerCommand);
-            } else if (lowerCommand.contains("wifi")) {
-                return toggleWifi(lowerCommand);
-            } else if (lowerCommand.contains("settings")) {
-                return openSettings();
-            } else if (lowerCommand.contains("volume")) {
-                return adjustVolume(lowerCommand);
-            } else if (lowerCommand.contains("brightness")) {
-                return adjustBrightness(lowerCommand);
-            } else {
-                return "I heard: " + command + ". I can help with alarms, flashlight, bluetooth, wifi, settings, volume, and brightness.";
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error processing command", e);
-            return "Sorry, I encountered an error processing that command.";
-        }
-    }
-    
-    private String setAlarm(String command) {
-        // Extract time from command
-        String time = "7:00 AM"; // Default time
-        if (command.contains("for")) {
-            String[] parts = command.split("for");
-            if (parts.length > 1) {
-                time = parts[1].trim();
-            }
-        }
-        
-        // Open alarm clock app
-        Intent alarmIntent = new Intent(android.provider.AlarmClock.ACTION_SET_ALARM);
-        alarmIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-        try {
-            mContext.startActivity(alarmIntent);
-            return "✅ Opening alarm clock to set alarm for " + time;
-        } catch (Exception e) {
-            return "❌ Could not open alarm clock app";
-        }
-    }
-    
-    private String toggleFlashlight(String command) {
-        try {
-            boolean turnOn = command.contains("on") || command.contains("enable");
-            
-            // Try to toggle flashlight using camera
-            Intent intent = new Intent("android.media.action.IMAGE_CAPTURE");
-            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-            
-            if (turnOn) {
-                return "✅ Flashlight turned ON (simulated)";
-            } else {
-                return "✅ Flashlight turned OFF (simulated)";
-            }
-        } catch (Exception e) {
-            return "❌ Could not control flashlight";
-        }
-    }
-    
-    private String toggleBluetooth(String command) {
-        try {
-            boolean turnOn = command.contains("on") || command.contains("enable");
-            
-            // Open Bluetooth settings
-            Intent intent = new Intent(Settings.ACTION_BLUETOOTH_SETTINGS);
-            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-            mContext.startActivity(intent);
-            
-            if (turnOn) {
-                return "✅ Opening Bluetooth settings to turn ON";
-            } else {
-                return "✅ Opening Bluetooth settings to turn OFF";
-            }
-        } catch (Exception e) {
-            return "❌ Could not open Bluetooth settings";
-        }
-    }
-    
-    private String toggleWifi(String command) {
-        try {
-            boolean turnOn = command.contains("on") || command.contains("enable");
-            
-            // Open WiFi settings
-            Intent intent = new Intent(Settings.ACTION_WIFI_SETTINGS);
-            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-            mContext.startActivity(intent);
-            
-            if (turnOn) {
-                return "✅ Opening WiFi settings to turn ON";
-            } else {
-                return "✅ Opening WiFi settings to turn OFF";
-            }
-        } catch (Exception e) {
-            return "❌ Could not open WiFi settings";
-        }
-    }
-    
-    private String openSettings() {
-        try {
-            Intent intent = new Intent(Settings.ACTION_SETTINGS);
-            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-            mContext.startActivity(intent);
-            return "✅ Opening device settings";
-        } catch (Exception e) {
-            return "❌ Could not open settings";
-        }
-    }
-    
-    private String adjustVolume(String command) {
-        try {
-            AudioManager audioManager = (AudioManager) mContext.getSystemService(Context.AUDIO_SERVICE);
-            
-            if (command.contains("up") || command.contains("increase")) {
-                audioManager.adjustStreamVolume(AudioManager.STREAM_MUSIC, AudioManager.ADJUST_RAISE, 0);
-                return "✅ Volume increased";
-            } else if (command.contains("down") || command.contains("decrease")) {
-                audioManager.adjustStreamVolume(AudioManager.STREAM_MUSIC, AudioManager.ADJUST_LOWER, 0);
-                return "✅ Volume decreased";
-            } else {
-                return "✅ Volume adjusted";
-            }
-        } catch (Exception e) {
-            return "❌ Could not adjust volume";
-        }
-    }
-    
-    private String adjustBrightness(String command) {
-        try {
-            if (command.contains("up") || command.contains("increase")) {
-                return "✅ Brightness increased (opening display settings)";
-            } else if (command.contains("down") || command.contains("decrease")) {
-                return "✅ Brightness decreased (opening display settings)";
-            } else {
-                return "✅ Brightness adjusted (opening display settings)";
-            }
-        } catch (Exception e) {
-            return "❌ Could not adjust brightness";
-        }
+    // Queues on the shared channel; the future never completes exceptionally, a full queue
+    // answers with an error response
+    private CompletableFuture<String> run(String command) {
+        return mChannel.submit(command);
     }
 }
@@ -0,0 +1,176 @@
+package com.buddy.assistant;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handles flashlight, camera capture, screenshots and screen recording.
+ */
+class CameraHandler extends HalCommandHandler {
+
+    private static final long TORCH_TIMEOUT_MS = 2000;
+
+    CameraHandler(DeviceHal hal) {
+        super(hal);
+    }
+
+    @Override
+    public String handle(CommandIntent intent, Map<String, String> params) {
+        switch (intent) {
+            case FLASHLIGHT_ON:
+                return enableFlashlight();
+            case FLASHLIGHT_OFF:
+                return disableFlashlight();
+            case FLASHLIGHT_STROBE:
+                return strobeFlashlight();
+            case FLASHLIGHT_SOS:
+                return flashSos();
+            case CAMERA_OPEN:
+                return openCamera();
+            case CAMERA_PHOTO:
+                return takePhoto();
+            case CAMERA_VIDEO:
+                return recordVideo();
+            case SCREENSHOT:
+                return takeScreenshot();
+            case SCREEN_RECORD:
+                return startScreenRecording();
+            default:
+                return "❌ AI Command not implemented: " + intent;
+        }
+    }
+    
+    @Override
+    public void prepare(CommandIntent intent) {
+        switch (intent) {
+            case FLASHLIGHT_ON:
+            case FLASHLIGHT_OFF:
+            case FLASHLIGHT_STROBE:
+            case FLASHLIGHT_SOS:
+                // Finds the flash camera and reads the torch state
+                DeviceHal.Torch torch = mHal.torch();
+                if (torch.hasFlash()) {
+                    torch.isOn();
+                }
+                break;
+            case CAMERA_OPEN:
+                mHal.screens().prepare(DeviceHal.Screen.CAMERA_APP);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    @Override
+    public CompletableFuture<String> handleAsync(CommandIntent intent, Map<String, String> params) {
+        DeviceHal.Torch torch = mHal.torch();
+        String response;
+        switch (intent) {
+            case FLASHLIGHT_ON:
+                response = handle(intent, params);
+                return whenState(response, response, torch::isOn, TORCH_TIMEOUT_MS, "Flashlight did not turn on");
+            case FLASHLIGHT_OFF:
+                response = handle(intent, params);
+                return whenState(response, response, () -> !torch.isOn(), TORCH_TIMEOUT_MS, "Flashlight did not turn off");
+            default:
+                return super.handleAsync(intent, params);
+        }
+    }
+    
+    private String enableFlashlight() {
+        try {
+            DeviceHal.Torch torch = mHal.torch();
+            if (!torch.hasFlash()) {
+                return "❌ This device has no flashlight";
+            }
+            return torch.setOn(true) ? "✅ Flashlight turned ON" : "✅ Flashlight is already ON";
+        } catch (Exception e) {
+            return "❌ Could not enable flashlight: " + e.getMessage();
+        }
+    }
+    
+    private String disableFlashlight() {
+        try {
+            DeviceHal.Torch torch = mHal.torch();
+            if (!torch.hasFlash()) {
+                return "❌ This device has no flashlight";
+            }
+            return torch.setOn(false) ? "✅ Flashlight turned OFF" : "✅ Flashlight is already OFF";
+        } catch (Exception e) {
+            return "❌ Could not disable flashlight: " + e.getMessage();
+        }
+    }
+    
+    private String strobeFlashlight() {
+        try {
+            DeviceHal.Torch torch = mHal.torch();
+            if (!torch.hasFlash()) {
+                return "❌ This device has no flashlight";
+            }
+            torch.startStrobe();
+            return "✅ Flashlight strobe started. Say 'turn off flashlight' to stop";
+        } catch (Exception e) {
+            return "❌ Could not start strobe: " + e.getMessage();
+        }
+    }
+    
+    private String flashSos() {
+        try {
+            DeviceHal.Torch torch = mHal.torch();
+            if (!torch.hasFlash()) {
+                return "❌ This device has no flashlight";
+            }
+            torch.startSos();
+            return "✅ Flashing SOS. Say 'turn off flashlight' to stop";
+        } catch (Exception e) {
+            return "❌ Could not flash SOS: " + e.getMessage();
+        }
+    }
+    
+    private String openCamera() {
+        try {
+            if (!mHal.screens().open(DeviceHal.Screen.CAMERA_APP)) {
+                return "❌ No camera app found";
+            }
+            return "✅ Opening camera";
+        } catch (Exception e) {
+            return "❌ Could not open camera: " + e.getMessage();
+        }
+    }
+    
+    private String takePhoto() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.PHOTO_CAPTURE);
+            return "✅ Opening camera for photo";
+        } catch (Exception e) {
+            return "❌ Could not open camera: " + e.getMessage();
+        }
+    }
+    
+    private String recordVideo() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.VIDEO_CAPTURE);
+            return "✅ Opening camera for video recording";
+        } catch (Exception e) {
+            return "❌ Could not open camera: " + e.getMessage();
+        }
+    }
+    
+    private String takeScreenshot() {
+        try {
+            mHal.screens().takeScreenshot();
+            return "✅ Taking screenshot";
+        } catch (Exception e) {
+            return "❌ Could not take screenshot: " + e.getMessage();
+        }
+    }
+    
+    private String startScreenRecording() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.DISPLAY_SETTINGS);
+            return "✅ Opening display settings for screen recording";
+        } catch (Exception e) {
+            return "❌ Could not access screen recording: " + e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.buddy.assistant;
+
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+import java.util.Map;
+
+/**
+ * Handles alarms, timers, reminders and Pomodoro sessions.
+ */
+class ClockHandler extends BaseCommandHandler {
+
+    ClockHandler(Context context) {
+        super(context);
+    }
+
+    @Override
+    public String handle(CommandIntent intent, Map<String, String> params) {
+        switch (intent) {
+            case ALARM_SET:
+                return setAlarm(params.get("time"), params.get("period"));
+            case ALARM_CANCEL:
+                return cancelAlarm();
+            case ALARM_LIST:
+                return listAlarms();
+            case TIMER_START:
+                return startTimer(params.get("duration"), params.get("unit"));
+            case TIMER_STOP:
+                return stopTimer();
+            case TIMER_SNOOZE:
+                return snoozeTimer();
+            case CREATE_REMINDER:
+                return createReminder();
+            case POMODORO_START:
+                return startPomodoro();
+            default:
+                return "❌ AI Command not implemented: " + intent;
+        }
+    }
+    
+    @Override
+    public void prepare(CommandIntent intent) {
+        if (intent == CommandIntent.ALARM_SET) {
+            LaunchTargetCache.get(mContext).handlesIntent(LaunchTargetCache.Capability.CLOCK);
+        }
+    }
+    
+    private String setAlarm(String time, String period) {
+        try {
+            Log.d("MainActivity", "setAlarm called with time: " + time + ", period: " + period);
+            
+            LaunchTargetCache targets = LaunchTargetCache.get(mContext);
+            Intent alarmIntent = targets.newIntent(LaunchTargetCache.Capability.CLOCK);
+            if (alarmIntent == null) {
+                Intent settingsIntent = new Intent(android.provider.Settings.ACTION_DATE_SETTINGS);
+                startActivity(settingsIntent);
+                return "❌ No alarm app found, opened settings instead";
+            }
+            if (!targets.handlesIntent(LaunchTargetCache.Capability.CLOCK)) {
+                startActivity(alarmIntent);
+                return "✅ Opening clock app for alarm setup";
+            }
+            
+            if (time != null && period != null) {
+                int hour = Integer.parseInt(time);
+                if (period.equals("pm") && hour != 12) {
+                    hour += 12;
+                } else if (period.equals("am") && hour == 12) {
+                    hour = 0;
+                }
+                alarmIntent.putExtra(android.provider.AlarmClock.EXTRA_HOUR, hour);
+                alarmIntent.putExtra(android.provider.AlarmClock.EXTRA_MINUTES, 0);
+                alarmIntent.putExtra(android.provider.AlarmClock.EXTRA_MESSAGE, "Buddy Assistant Alarm");
+            }
+            startActivity(alarmIntent);
+            return "✅ Setting alarm" + (time != null ? " for " + time + " " + period : "");
+            
+        } catch (Exception e) {
+            return "❌ Could not set alarm: " + e.getMessage();
+        }
+    }
+    
+    private String cancelAlarm() {
+        try {
+            Intent intent = new Intent(android.provider.AlarmClock.ACTION_SHOW_ALARMS);
+            startActivity(intent);
+            return "✅ Opening alarm list to cancel";
+        } catch (Exception e) {
+            return "❌ Could not open alarm list: " + e.getMessage();
+        }
+    }
+    
+    private String listAlarms() {
+        try {
+            Intent intent = new Intent(android.provider.AlarmClock.ACTION_SHOW_ALARMS);
+            startActivity(intent);
+            return "✅ Showing alarm list";
+        } catch (Exception e) {
+            return "❌ Could not show alarms: " + e.getMessage();
+        }
+    }
+    
+    private String startTimer(String duration, String unit) {
+        try {
+            Intent intent = new Intent(android.provider.AlarmClock.ACTION_SET_TIMER);
+            if (duration != null && unit != null) {
+                int minutes = Integer.parseInt(duration);
+                if (unit.startsWith("hour") || unit.startsWith("hr")) {
+                    minutes *= 60;
+                }
+                intent.putExtra(android.provider.AlarmClock.EXTRA_LENGTH, minutes * 60);
+            }
+            startActivity(intent);
+            return "✅ Starting timer" + (duration != null ? " for " + duration + " " + unit : "");
+        } catch (Exception e) {
+            return "❌ Could not start timer: " + e.getMessage();
+        }
+    }
+    
+    private String stopTimer() {
+        try {
+            Intent intent = new Intent(android.provider.AlarmClock.ACTION_SHOW_ALARMS);
+            startActivity(intent);
+            return "✅ Opening timer controls";
+        } catch (Exception e) {
+            return "❌ Could not access timer: " + e.getMessage();
+        }
+    }
+    
+    private String snoozeTimer() {
+        try {
+            Intent intent = new Intent(android.provider.AlarmClock.ACTION_SHOW_ALARMS);
+            startActivity(intent);
+            return "✅ Opening timer controls for snooze";
+        } catch (Exception e) {
+            return "❌ Could not access timer: " + e.getMessage();
+        }
+    }
+    
+    private String createReminder() {
+        try {
+            Intent intent = new Intent(android.provider.AlarmClock.ACTION_SET_ALARM);
+            startActivity(intent);
+            return "✅ Opening alarm app to create reminder";
+        } catch (Exception e) {
+            return "❌ Could not create reminder: " + e.getMessage();
+        }
+    }
+    
+    private String startPomodoro() {
+        try {
+            Intent intent = new Intent(android.provider.AlarmClock.ACTION_SET_TIMER);
+            intent.putExtra(android.provider.AlarmClock.EXTRA_LENGTH, 25 * 60); // 25 minutes
+            startActivity(intent);
+            return "✅ Starting 25-minute Pomodoro session";
+        } catch (Exception e) {
+            return "❌ Could not start Pomodoro: " + e.getMessage();
+        }
+    }
+}
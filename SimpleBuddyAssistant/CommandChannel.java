@@ -0,0 +1,245 @@
+package com.buddy.assistant;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands commands to a {@link CommandEngine} inside the process, e.g. from the always-on
+ * listener and the UI, whether or not any UI is showing.
+ *
+ * Submitting only adds to a bounded queue, so it's cheap to call from a recognizer
+ * callback. When the queue is full the {@link OverflowPolicy} decides which command
+ * loses. The same command submitted twice in a row within the dedupe window, say by the
+ * always-on listener and a tap on the button, runs once and both callers get its
+ * response; with another command in between, both run.
+ *
+ * The queue is drained on the engine's runner. Commands are classified there, and
+ * safety commands like "turn off the flashlight" run ahead of waiting commands of other
+ * groups. Waiting commands they undo, like "turn on the flashlight", are skipped; other
+ * commands of their group keep their order.
+ */
+public final class CommandChannel {
+    private static final String TAG = "CommandChannel";
+
+    /** What happens to a command submitted while the queue is full. */
+    public enum OverflowPolicy {
+        /** The oldest queued command is dropped to make room. */
+        DROP_OLDEST,
+        /** The new command is turned away. */
+        REJECT
+    }
+
+    /** Receives responses to commands {@link #post posted} to the channel. */
+    public interface Listener {
+        /** Called on whichever thread completed the command; post to the UI thread if needed. */
+        void onResponse(String command, String response);
+    }
+
+    // Stop something happening now before anything else waiting, and the waiting commands each one undoes
+    private static final Map<CommandIntent, Set<CommandIntent>> PRIORITY_INTENTS = new EnumMap<>(CommandIntent.class);
+    static {
+        PRIORITY_INTENTS.put(CommandIntent.ALARM_CANCEL, EnumSet.of(CommandIntent.ALARM_SET));
+        PRIORITY_INTENTS.put(CommandIntent.TIMER_STOP, EnumSet.of(CommandIntent.TIMER_START,
+                CommandIntent.POMODORO_START));
+        PRIORITY_INTENTS.put(CommandIntent.MEDIA_PAUSE, EnumSet.of(CommandIntent.MEDIA_PLAY));
+        PRIORITY_INTENTS.put(CommandIntent.FLASHLIGHT_OFF, EnumSet.of(CommandIntent.FLASHLIGHT_ON,
+                CommandIntent.FLASHLIGHT_STROBE, CommandIntent.FLASHLIGHT_SOS));
+    }
+
+    static final String REJECTED = "❌ Too many pending commands, try again shortly";
+    static final String DROPPED = "❌ Dropped, too many newer commands";
+    static final String SUPERSEDED = "✅ Skipped, a later command undoes it";
+
+    private static final class Request {
+        final String command;
+        final String key;
+        final boolean notify;
+        final long submittedNanos = System.nanoTime();
+        final CompletableFuture<String> response = new CompletableFuture<>();
+
+        Request(String command, String key, boolean notify) {
+            this.command = command;
+            this.key = key;
+            this.notify = notify;
+        }
+    }
+
+    private final CommandEngine mEngine;
+    private final int mCapacity;
+    private final OverflowPolicy mPolicy;
+    private final long mDedupeWindowNanos;
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<>();
+    private final Runnable mDrain = this::drain;
+
+    private final Object mLock = new Object();
+    // Guarded by mLock
+    private final ArrayDeque<Request> mQueue = new ArrayDeque<>();
+    // The last command submitted, the only one a new command can be a duplicate of; guarded by mLock
+    private Request mLast;
+    private boolean mDrainScheduled;
+
+    public CommandChannel(CommandEngine engine, int capacity, OverflowPolicy policy, long dedupeWindowMs) {
+        mEngine = engine;
+        mCapacity = capacity;
+        mPolicy = policy;
+        mDedupeWindowNanos = TimeUnit.MILLISECONDS.toNanos(dedupeWindowMs);
+    }
+
+    /**
+     * Queues {@code command} and returns a future of its response. A command that can't
+     * be queued completes at once with an error response rather than exceptionally.
+     */
+    public CompletableFuture<String> submit(String command) {
+        return enqueue(command, false);
+    }
+
+    /** Queues {@code command}; its response goes to the listeners. */
+    public void post(String command) {
+        enqueue(command, true);
+    }
+
+    public void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    private CompletableFuture<String> enqueue(String command, boolean notify) {
+        Request request = new Request(command, normalize(command), notify);
+        Request dropped = null;
+        boolean rejected = false;
+        boolean schedule = false;
+        synchronized (mLock) {
+            Request last = mLast;
+            if (last != null && last.key.equals(request.key)
+                    && request.submittedNanos - last.submittedNanos <= mDedupeWindowNanos) {
+                EngineLog.d(TAG, "Duplicate of a command " + TimeUnit.NANOSECONDS.toMillis(
+                        request.submittedNanos - last.submittedNanos) + " ms ago: " + command);
+                return last.response;
+            }
+
+            if (mQueue.size() >= mCapacity && mPolicy == OverflowPolicy.REJECT) {
+                rejected = true;
+            } else {
+                if (mQueue.size() >= mCapacity) {
+                    dropped = mQueue.pollFirst();
+                }
+                mQueue.addLast(request);
+                mLast = request;
+                schedule = !mDrainScheduled;
+                mDrainScheduled = true;
+            }
+        }
+
+        // Completed outside the lock, since listeners run synchronously
+        if (rejected) {
+            EngineLog.w(TAG, "Queue full, rejecting " + command);
+            complete(request, REJECTED);
+            return request.response;
+        }
+        if (dropped != null) {
+            EngineLog.w(TAG, "Queue full, dropping " + dropped.command);
+            complete(dropped, DROPPED);
+        }
+        if (schedule) {
+            mEngine.getRunner().execute(mDrain);
+        }
+        return request.response;
+    }
+
+    private void drain() {
+        while (true) {
+            List<Request> batch;
+            synchronized (mLock) {
+                if (mQueue.isEmpty()) {
+                    mDrainScheduled = false;
+                    return;
+                }
+                batch = new ArrayList<>(mQueue);
+                mQueue.clear();
+            }
+
+            // Classify everything waiting, then run priority commands first, each group in order
+            int size = batch.size();
+            List<CommandEngine.Prepared> prepared = new ArrayList<>(size);
+            for (Request request : batch) {
+                prepared.add(mEngine.prepare(request.command, request.submittedNanos));
+            }
+            boolean[] skipped = new boolean[size];
+            boolean[] first = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                Set<CommandIntent> undoes = PRIORITY_INTENTS.get(intentOf(prepared.get(i)));
+                if (undoes == null) {
+                    continue;
+                }
+                CommandIntent.Group group = intentOf(prepared.get(i)).getGroup();
+                first[i] = true;
+                for (int j = 0; j < i; j++) {
+                    CommandIntent earlier = intentOf(prepared.get(j));
+                    if (skipped[j] || earlier == null || earlier.getGroup() != group) {
+                        continue;
+                    }
+                    if (undoes.contains(earlier)) {
+                        skipped[j] = true;
+                    } else {
+                        // e.g. "next track" before "pause" must still run before it
+                        first[i] = false;
+                    }
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (skipped[i]) {
+                    complete(batch.get(i), SUPERSEDED);
+                }
+            }
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < size; i++) {
+                    if (!skipped[i] && first[i] == (pass == 0)) {
+                        execute(batch.get(i), prepared.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    // The intent a command will run, or null for routines and commands left to the fallback
+    private static CommandIntent intentOf(CommandEngine.Prepared prepared) {
+        return prepared.isConfident() ? prepared.result.intent : null;
+    }
+
+    private void execute(Request request, CommandEngine.Prepared prepared) {
+        CompletableFuture<String> response;
+        try {
+            response = mEngine.execute(prepared);
+        } catch (RuntimeException e) {
+            EngineLog.e(TAG, "Command failed", e);
+            response = CompletableFuture.completedFuture("❌ Error executing command: " + e.getMessage());
+        }
+        response.whenComplete((result, error) ->
+                complete(request, error == null ? result : "❌ Error executing command: " + error.getMessage()));
+    }
+
+    private void complete(Request request, String response) {
+        request.response.complete(response);
+        if (request.notify) {
+            for (Listener listener : mListeners) {
+                listener.onResponse(request.command, response);
+            }
+        }
+    }
+
+    // Commands that differ only in case, punctuation, spacing or the wake word are the same
+    static String normalize(String command) {
+        return CommandEngine.stripWakeWord(command).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+}
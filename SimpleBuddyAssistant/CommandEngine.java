@@ -0,0 +1,198 @@
+package com.buddy.assistant;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns what the user said into a response: the one path every entry point uses, whether
+ * the command was typed, spoken or sent by another component.
+ *
+ * A command that names a routine runs the routine. Otherwise it is classified, and a
+ * confident result is executed through the {@link CommandRunner}; anything else goes to
+ * the {@link Fallback}. Every executed command is counted in {@link CommandMetrics} and
+ * written to the {@link CommandHistoryLog}. The engine has no Android dependencies, so it
+ * also runs on a host JVM with a runner and handlers of its own.
+ */
+public final class CommandEngine {
+    private static final String TAG = "CommandEngine";
+
+    // Below this the classifier's intent is more likely wrong than right
+    static final float MIN_CONFIDENCE = 0.6f;
+
+    private static final String WAKE_WORD = "hey buddy";
+
+    /** Handles commands the classifier isn't confident about. */
+    public interface Fallback {
+        /**
+         * @param command the command as received
+         * @param lowerCommand the command lowercased and without the wake word
+         */
+        String handle(String command, String lowerCommand);
+    }
+
+    /** A command with its routine or classification, ready to {@link #execute}. */
+    public static final class Prepared {
+        public final String command;
+        final String lowerCommand;
+        // Exactly one of these is set
+        public final Routine routine;
+        public final AICommandProcessor.CommandResult result;
+        // System.nanoTime() when the command was received, for end-to-end latency
+        final long receivedNanos;
+        final long classifyNanos;
+
+        Prepared(String command, String lowerCommand, Routine routine, AICommandProcessor.CommandResult result,
+                long receivedNanos, long classifyNanos) {
+            this.command = command;
+            this.lowerCommand = lowerCommand;
+            this.routine = routine;
+            this.result = result;
+            this.receivedNanos = receivedNanos;
+            this.classifyNanos = classifyNanos;
+        }
+
+        // The metrics row this command counts towards
+        int metricsRow() {
+            if (routine != null) {
+                return CommandMetrics.ROUTINE_ROW;
+            }
+            return CommandMetrics.rowOf(isConfident() ? result.intent : CommandIntent.UNKNOWN);
+        }
+
+        /** Whether this will execute its classified intent rather than a routine or the fallback. */
+        public boolean isConfident() {
+            return result != null && result.confidence > MIN_CONFIDENCE;
+        }
+    }
+
+    private final CommandRunner mRunner;
+    private final IntentPriors mPriors;
+    private final RoutineStore mRoutines;
+    private final RoutineRunner mRoutineRunner;
+    private final Fallback mFallback;
+    private final CommandHistoryLog mHistory;
+    private final CommandMetrics mMetrics = CommandMetrics.get();
+
+    /** @param history where executed commands are logged, or null to log nothing */
+    public CommandEngine(CommandRunner runner, IntentPriors priors, RoutineStore routines,
+            CommandHistoryLog history, Fallback fallback) {
+        mRunner = runner;
+        mPriors = priors;
+        mRoutines = routines;
+        mRoutineRunner = new RoutineRunner(runner);
+        mHistory = history;
+        mFallback = fallback;
+        AICommandProcessor.setIntentPriors(priors);
+    }
+
+    /** Lowercases {@code command} and removes a leading wake word. */
+    public static String stripWakeWord(String command) {
+        String lowerCommand = command.toLowerCase().trim();
+        if (lowerCommand.startsWith(WAKE_WORD)) {
+            lowerCommand = lowerCommand.substring(WAKE_WORD.length()).trim();
+        }
+        return lowerCommand;
+    }
+
+    /** Returns the routine {@code command} names, or null. */
+    public Routine findRoutine(String command) {
+        return mRoutines.find(stripWakeWord(command));
+    }
+
+    /**
+     * Runs {@code command} and returns a future of the response. Call on the runner's
+     * thread.
+     */
+    public CompletableFuture<String> execute(String command) {
+        return execute(prepare(command));
+    }
+
+    /**
+     * Finds the routine {@code command} names or classifies it, without executing
+     * anything. Safe to call on any thread.
+     */
+    public Prepared prepare(String command) {
+        return prepare(command, System.nanoTime());
+    }
+
+    /**
+     * Like {@link #prepare(String)} for a command received at {@code receivedNanos}, as
+     * given by {@link System#nanoTime()}, e.g. before it waited in a queue.
+     */
+    public Prepared prepare(String command, long receivedNanos) {
+        long start = System.nanoTime();
+        String lowerCommand = stripWakeWord(command);
+
+        // Routine names are chosen by the user, so they are matched before classification
+        Routine routine = mRoutines.find(lowerCommand);
+        AICommandProcessor.CommandResult result = routine == null ? AICommandProcessor.processCommand(lowerCommand) : null;
+        Prepared prepared = new Prepared(command, lowerCommand, routine, result, receivedNanos, System.nanoTime() - start);
+        mMetrics.recordClassification(prepared.metricsRow(), prepared.classifyNanos);
+        return prepared;
+    }
+
+    /** Executes a prepared command. Call on the runner's thread. */
+    public CompletableFuture<String> execute(Prepared prepared) {
+        long start = System.nanoTime();
+        CompletableFuture<String> response;
+        if (prepared.routine != null) {
+            EngineLog.d(TAG, "Running routine " + prepared.routine.getName());
+            response = mRoutineRunner.run(prepared.routine);
+        } else if (prepared.isConfident()) {
+            response = dispatch(prepared.result);
+        } else {
+            response = CompletableFuture.completedFuture(mFallback.handle(prepared.command, prepared.lowerCommand));
+        }
+        return record(prepared, start, response);
+    }
+
+    /** Executes an already classified command. Call on the runner's thread. */
+    public CompletableFuture<String> execute(AICommandProcessor.CommandResult result) {
+        long start = System.nanoTime();
+        // Classified elsewhere, e.g. from partial speech, so there's no utterance or classify time
+        return record(new Prepared("", "", null, result, start, 0), start, dispatch(result));
+    }
+
+    private CompletableFuture<String> dispatch(AICommandProcessor.CommandResult result) {
+        mPriors.record(result.intent);
+        return mRunner.dispatch(result);
+    }
+
+    private CompletableFuture<String> record(Prepared prepared, long startNanos, CompletableFuture<String> response) {
+        response.whenComplete((text, error) -> {
+            long end = System.nanoTime();
+            boolean success = error == null && text != null && !text.startsWith("❌");
+            mMetrics.recordExecution(prepared.metricsRow(), end - startNanos, end - prepared.receivedNanos, success);
+            if (mHistory != null) {
+                mHistory.append(historyEntry(prepared, error == null ? text : "❌ " + error.getMessage(),
+                        success, end - startNanos, end - prepared.receivedNanos));
+            }
+        });
+        return response;
+    }
+
+    private static CommandHistoryLog.Entry historyEntry(Prepared prepared, String response, boolean success,
+            long executeNanos, long totalNanos) {
+        long receivedMillis = System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        if (prepared.routine != null) {
+            return new CommandHistoryLog.Entry(receivedMillis, prepared.command, CommandHistoryLog.Kind.ROUTINE,
+                    prepared.routine.getName(), 1f, Collections.emptyMap(), response, success,
+                    toMicros(prepared.classifyNanos), toMicros(executeNanos), toMicros(totalNanos));
+        }
+        AICommandProcessor.CommandResult result = prepared.result;
+        return new CommandHistoryLog.Entry(receivedMillis, prepared.command,
+                prepared.isConfident() ? CommandHistoryLog.Kind.INTENT : CommandHistoryLog.Kind.FALLBACK,
+                result.intent.name(), result.confidence,
+                result.parameters != null ? result.parameters : Collections.emptyMap(), response, success,
+                toMicros(prepared.classifyNanos), toMicros(executeNanos), toMicros(totalNanos));
+    }
+
+    private static int toMicros(long nanos) {
+        return (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public CommandRunner getRunner() {
+        return mRunner;
+    }
+}
@@ -0,0 +1,77 @@
+package com.buddy.assistant;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The app's {@link CommandRunner}: a dedicated background thread that runs the engine's
+ * tasks one at a time, in the order they were given, so settings writes and system
+ * service calls never block rendering.
+ *
+ * The few intents whose handler {@link CommandHandler#needsMainThread needs the main
+ * thread} are handed over to it; the executor thread waits for them so ordering is kept.
+ * An action whose effect arrives later, like a radio turning on, doesn't hold up the
+ * thread: {@link #dispatch} returns a future, and the next task can start meanwhile.
+ */
+public class CommandExecutor implements CommandRunner {
+    private static final String TAG = "CommandExecutor";
+
+    private final IntentDispatcher mDispatcher;
+    private final Handler mWorker;
+    private final Handler mMain = new Handler(Looper.getMainLooper());
+
+    public CommandExecutor(IntentDispatcher dispatcher) {
+        mDispatcher = dispatcher;
+        HandlerThread thread = new HandlerThread(TAG, Process.THREAD_PRIORITY_FOREGROUND);
+        thread.start();
+        mWorker = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Executes a classified command, on the main thread if its handler requires it, and
+     * returns a future that completes when the action has taken effect. Call from a task
+     * running on this executor.
+     */
+    @Override
+    public CompletableFuture<String> dispatch(final AICommandProcessor.CommandResult result) {
+        return dispatch(mDispatcher, mMain, result);
+    }
+
+    /**
+     * Dispatches {@code result} through {@code dispatcher} on the calling thread, or on
+     * {@code main}'s thread if its handler requires it, waiting for the hand-over.
+     */
+    static CompletableFuture<String> dispatch(final IntentDispatcher dispatcher, Handler main,
+            final AICommandProcessor.CommandResult result) {
+        final long start = SystemClock.elapsedRealtime();
+        CompletableFuture<String> response;
+        if (!dispatcher.needsMainThread(result.intent) || Looper.myLooper() == Looper.getMainLooper()) {
+            response = dispatcher.dispatchAsync(result);
+        } else {
+            FutureTask<CompletableFuture<String>> task = new FutureTask<>(() -> dispatcher.dispatchAsync(result));
+            main.post(task);
+            try {
+                response = task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.completedFuture("❌ Command interrupted: " + result.intent);
+            } catch (ExecutionException e) {
+                return CompletableFuture.completedFuture("❌ Error executing AI command: " + e.getCause().getMessage());
+            }
+        }
+        return response.whenComplete((text, error) ->
+                Log.d(TAG, result.intent + " finished in " + (SystemClock.elapsedRealtime() - start) + " ms: " + text));
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        mWorker.post(task);
+    }
+}
@@ -0,0 +1,46 @@
+package com.buddy.assistant;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Executes the intents of one {@link CommandIntent.Group} and returns the text shown
+ * to the user.
+ */
+public interface CommandHandler {
+
+    String handle(CommandIntent intent, Map<String, String> params);
+
+    /**
+     * Like {@link #handle}, but the future completes only once the action has taken effect,
+     * e.g. when the radio reports it is on, and fails if that doesn't happen in time.
+     * Actions that are done when {@link #handle} returns complete immediately.
+     */
+    default CompletableFuture<String> handleAsync(CommandIntent intent, Map<String, String> params) {
+        return CompletableFuture.completedFuture(handle(intent, params));
+    }
+
+    /**
+     * Whether {@code intent} has to be handled on the main thread, e.g. because it starts
+     * an activity for a result. Everything else runs on the command executor's thread.
+     */
+    default boolean needsMainThread(CommandIntent intent) {
+        return false;
+    }
+
+    /**
+     * Does the lookups that handling {@code intent} will need, e.g. while the rest of the
+     * command is still being recognized, so they aren't done cold when it arrives. Called
+     * on a background thread; must not change anything.
+     */
+    default void prepare(CommandIntent intent) {
+    }
+
+    /**
+     * Creates the handler for a group. Called at most once per group, the first time
+     * one of its intents is dispatched, so unused handler classes are never loaded.
+     */
+    interface Factory {
+        CommandHandler create(CommandIntent.Group group);
+    }
+}
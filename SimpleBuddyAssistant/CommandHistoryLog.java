@@ -0,0 +1,321 @@
+package com.buddy.assistant;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only binary log of every executed command: what was said, how it was classified,
+ * the response and how long each stage took. Kept for auditing and as training and replay
+ * data.
+ *
+ * Records are written by a private worker thread into a memory-mapped segment file, so
+ * appending costs the caller no I/O at all. A full segment is followed by a new one, and
+ * the oldest are deleted to keep the log within {@link #MAX_SEGMENTS} segments. Each
+ * record's length is written after its contents, so a record cut short by a crash is
+ * never read back.
+ */
+public final class CommandHistoryLog {
+    private static final String TAG = "CommandHistoryLog";
+
+    static final String DIR_NAME = "history";
+
+    private static final int MAGIC = 0x42484c31; // "BHL1"
+    static final int SEGMENT_BYTES = 256 * 1024;
+    // About 4 MB, or tens of thousands of commands
+    static final int MAX_SEGMENTS = 16;
+    // Longer utterances and responses are cut, so a record always fits in a segment
+    private static final int MAX_STRING_BYTES = 1024;
+    private static final int MAX_SLOTS = 16;
+    // Enough for every string at its longest
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.log");
+
+    /** How a command was executed. */
+    public enum Kind {
+        /** Its classified intent was dispatched. */
+        INTENT,
+        /** It named a routine. */
+        ROUTINE,
+        /** The classifier wasn't confident, so the keyword fallback handled it. */
+        FALLBACK
+    }
+
+    /** One executed command. */
+    public static final class Entry {
+        public final long timeMillis;
+        public final String utterance;
+        public final Kind kind;
+        // The intent's name, or the routine's; for FALLBACK the intent the classifier leaned to
+        public final String name;
+        public final float confidence;
+        public final Map<String, String> slots;
+        public final String response;
+        public final boolean success;
+        public final int classifyMicros;
+        public final int executeMicros;
+        public final int totalMicros;
+
+        public Entry(long timeMillis, String utterance, Kind kind, String name, float confidence,
+                Map<String, String> slots, String response, boolean success,
+                int classifyMicros, int executeMicros, int totalMicros) {
+            this.timeMillis = timeMillis;
+            this.utterance = utterance;
+            this.kind = kind;
+            this.name = name;
+            this.confidence = confidence;
+            this.slots = slots;
+            this.response = response;
+            this.success = success;
+            this.classifyMicros = classifyMicros;
+            this.executeMicros = executeMicros;
+            this.totalMicros = totalMicros;
+        }
+    }
+
+    private static CommandHistoryLog sInstance;
+
+    private final File mDir;
+    private final ExecutorService mWorker;
+
+    // Owned by the worker thread
+    private long mSegmentIndex = -1;
+    private MappedByteBuffer mSegment;
+    private final ByteBuffer mRecord = ByteBuffer.allocate(MAX_RECORD_BYTES);
+
+    private CommandHistoryLog(File dir) {
+        mDir = dir;
+        mWorker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, TAG);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Returns the process-wide log kept under {@code dir}. */
+    public static synchronized CommandHistoryLog getInstance(File dir) {
+        if (sInstance == null) {
+            sInstance = new CommandHistoryLog(new File(dir, DIR_NAME));
+        }
+        return sInstance;
+    }
+
+    /** Adds {@code entry} to the log. Returns immediately. */
+    public void append(final Entry entry) {
+        mWorker.execute(() -> {
+            try {
+                write(entry);
+            } catch (IOException e) {
+                EngineLog.w(TAG, "Could not write history: " + e.getMessage());
+                mSegment = null;
+            }
+        });
+    }
+
+    private void write(Entry entry) throws IOException {
+        mRecord.clear();
+        encode(entry, mRecord);
+        mRecord.flip();
+        if (mSegment == null) {
+            openLatestSegment();
+        }
+        int length = mRecord.remaining();
+        if (mSegment.remaining() < Integer.BYTES + length) {
+            startSegment(mSegmentIndex + 1);
+        }
+        int position = mSegment.position();
+        mSegment.position(position + Integer.BYTES);
+        mSegment.put(mRecord);
+        // The length goes last; until it's there readers see the end of the log
+        mSegment.putInt(position, length);
+    }
+
+    private void openLatestSegment() throws IOException {
+        if (!mDir.isDirectory() && !mDir.mkdirs()) {
+            throw new IOException("Could not create " + mDir);
+        }
+        List<Long> segments = listSegments(mDir);
+        if (segments.isEmpty()) {
+            startSegment(0);
+            return;
+        }
+        mSegmentIndex = segments.get(segments.size() - 1);
+        mSegment = map(segmentFile(mDir, mSegmentIndex));
+        if (mSegment.getInt(0) != MAGIC) {
+            EngineLog.w(TAG, "Starting over after unreadable segment " + mSegmentIndex);
+            startSegment(mSegmentIndex + 1);
+            return;
+        }
+        int end = endOfRecords(mSegment);
+        clearFrom(mSegment, end);
+        mSegment.position(end);
+    }
+
+    // A record cut short by a crash leaves its contents after the end; cleared, so the
+    // next record written there can't be followed by a stale length that reads as valid
+    private static void clearFrom(ByteBuffer segment, int position) {
+        for (int i = position; i < segment.limit(); i++) {
+            // Only pages holding leftovers are dirtied
+            if (segment.get(i) != 0) {
+                segment.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private void startSegment(long index) throws IOException {
+        if (mSegment != null) {
+            mSegment.force();
+        }
+        mSegmentIndex = index;
+        mSegment = map(segmentFile(mDir, index));
+        mSegment.putInt(0, MAGIC);
+        mSegment.position(Integer.BYTES);
+
+        List<Long> segments = listSegments(mDir);
+        for (int i = 0; i < segments.size() - MAX_SEGMENTS; i++) {
+            if (!segmentFile(mDir, segments.get(i)).delete()) {
+                EngineLog.w(TAG, "Could not delete segment " + segments.get(i));
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        }
+    }
+
+    // Returns the position after the last complete record
+    private static int endOfRecords(ByteBuffer segment) {
+        int position = Integer.BYTES;
+        while (position + Integer.BYTES <= segment.limit()) {
+            int length = segment.getInt(position);
+            if (length <= 0 || position + Integer.BYTES + length > segment.limit()) {
+                break;
+            }
+            position += Integer.BYTES + length;
+        }
+        return position;
+    }
+
+    private static File segmentFile(File dir, long index) {
+        return new File(dir, String.format(Locale.ROOT, "segment-%06d.log", index));
+    }
+
+    // Segment indexes in dir, oldest first
+    private static List<Long> listSegments(File dir) {
+        String[] names = dir.list();
+        if (names == null) {
+            return Collections.emptyList();
+        }
+        List<Long> indexes = new ArrayList<>();
+        for (String name : names) {
+            Matcher matcher = SEGMENT_NAME.matcher(name);
+            if (matcher.matches()) {
+                indexes.add(Long.parseLong(matcher.group(1)));
+            }
+        }
+        Collections.sort(indexes);
+        return indexes;
+    }
+
+    private static void encode(Entry entry, ByteBuffer buffer) {
+        buffer.putLong(entry.timeMillis);
+        buffer.put((byte) entry.kind.ordinal());
+        putString(buffer, entry.utterance);
+        putString(buffer, entry.name);
+        buffer.putFloat(entry.confidence);
+        int slots = Math.min(entry.slots.size(), MAX_SLOTS);
+        buffer.put((byte) slots);
+        for (Map.Entry<String, String> slot : entry.slots.entrySet()) {
+            if (slots-- == 0) {
+                break;
+            }
+            putString(buffer, slot.getKey());
+            putString(buffer, slot.getValue());
+        }
+        putString(buffer, entry.response);
+        buffer.put((byte) (entry.success ? 1 : 0));
+        buffer.putInt(entry.classifyMicros);
+        buffer.putInt(entry.executeMicros);
+        buffer.putInt(entry.totalMicros);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_STRING_BYTES);
+        buffer.putShort((short) length);
+        buffer.put(bytes, 0, length);
+    }
+
+    private static Entry decode(ByteBuffer record) {
+        long timeMillis = record.getLong();
+        Kind kind = Kind.values()[record.get()];
+        String utterance = getString(record);
+        String name = getString(record);
+        float confidence = record.getFloat();
+        int slotCount = record.get();
+        Map<String, String> slots = new LinkedHashMap<>();
+        for (int i = 0; i < slotCount; i++) {
+            slots.put(getString(record), getString(record));
+        }
+        String response = getString(record);
+        boolean success = record.get() != 0;
+        return new Entry(timeMillis, utterance, kind, name, confidence, slots, response, success,
+                record.getInt(), record.getInt(), record.getInt());
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        // A cut may have split a character; the decoder replaces the pieces
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the log kept under {@code dir}, as passed to {@link #getInstance}, oldest
+     * entry first. Works on a copy pulled from a device too.
+     */
+    public static void read(File dir, Consumer<Entry> consumer) throws IOException {
+        File historyDir = new File(dir, DIR_NAME).isDirectory() ? new File(dir, DIR_NAME) : dir;
+        for (long index : listSegments(historyDir)) {
+            ByteBuffer segment;
+            try (RandomAccessFile raf = new RandomAccessFile(segmentFile(historyDir, index), "r");
+                    FileChannel channel = raf.getChannel()) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (segment.limit() < Integer.BYTES || segment.getInt(0) != MAGIC) {
+                continue;
+            }
+            int end = endOfRecords(segment);
+            int position = Integer.BYTES;
+            while (position < end) {
+                int length = segment.getInt(position);
+                ByteBuffer record = segment.duplicate();
+                record.position(position + Integer.BYTES);
+                record.limit(position + Integer.BYTES + length);
+                consumer.accept(decode(record.slice()));
+                position += Integer.BYTES + length;
+            }
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.buddy.assistant;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Registry of every command Buddy understands.
+ *
+ * Each intent declares, in one place, the handler group that executes it, the slots
+ * that are extracted from the utterance and the phrases used to classify it. Adding
+ * a command means adding a constant here and a case to the group's handler.
+ *
+ * The phrases below are the English grammar. Other languages provide theirs through
+ * {@link GrammarPacks}; the matching index is only built for languages in use.
+ */
+public enum CommandIntent {
+    // Bluetooth intents
+    BLUETOOTH_ON(Group.CONNECTIVITY,
+        "turn on bluetooth", "enable bluetooth", "activate bluetooth",
+        "switch on bluetooth", "bluetooth on", "open bluetooth",
+        "start bluetooth", "connect bluetooth"),
+    BLUETOOTH_OFF(Group.CONNECTIVITY,
+        "turn off bluetooth", "disable bluetooth", "deactivate bluetooth",
+        "switch off bluetooth", "bluetooth off", "close bluetooth",
+        "stop bluetooth", "disconnect bluetooth"),
+
+    // WiFi intents
+    WIFI_ON(Group.CONNECTIVITY,
+        "turn on wifi", "enable wifi", "activate wifi", "switch on wifi",
+        "wifi on", "open wifi", "start wifi", "connect wifi"),
+    WIFI_OFF(Group.CONNECTIVITY,
+        "turn off wifi", "disable wifi", "deactivate wifi", "switch off wifi",
+        "wifi off", "close wifi", "stop wifi", "disconnect wifi"),
+
+    // Flashlight intents
+    FLASHLIGHT_ON(Group.CAMERA,
+        "turn on flashlight", "turn on torch", "turn on flash", "turn on light",
+        "enable flashlight", "activate flashlight", "switch on flashlight",
+        "flashlight on", "torch on", "flash on", "light on"),
+    FLASHLIGHT_OFF(Group.CAMERA,
+        "turn off flashlight", "turn off torch", "turn off flash", "turn off light",
+        "disable flashlight", "deactivate flashlight", "switch off flashlight",
+        "flashlight off", "torch off", "flash off", "light off"),
+    FLASHLIGHT_STROBE(Group.CAMERA,
+        "strobe light", "flashlight strobe", "strobe flashlight", "strobe",
+        "start strobe", "turn on strobe", "blink flashlight", "flashing light"),
+    FLASHLIGHT_SOS(Group.CAMERA,
+        "sos", "flash sos", "flashlight sos", "sos signal",
+        "emergency signal", "signal for help"),
+
+    // Camera intents
+    CAMERA_OPEN(Group.CAMERA,
+        "open camera", "take photo", "take picture", "open camera app",
+        "launch camera", "start camera", "camera", "photo", "picture"),
+
+    // Volume intents
+    VOLUME_UP(Group.AUDIO, EnumSet.of(Slot.LEVEL),
+        "increase volume", "turn up volume", "volume up", "louder",
+        "make it louder", "volume higher", "increase sound", "turn up sound"),
+    VOLUME_DOWN(Group.AUDIO, EnumSet.of(Slot.LEVEL),
+        "decrease volume", "turn down volume", "volume down", "quieter",
+        "make it quieter", "volume lower", "decrease sound", "turn down sound"),
+    VOLUME_MAX(Group.AUDIO, EnumSet.of(Slot.LEVEL),
+        "volume maximum", "volume 100", "volume max", "full volume",
+        "maximum volume", "volume to max", "volume to 100%"),
+
+    // Alarm intents
+    ALARM_SET(Group.CLOCK, EnumSet.of(Slot.TIME, Slot.DURATION),
+        "set alarm", "create alarm", "add alarm", "schedule alarm",
+        "wake me up", "remind me", "alarm for", "set reminder",
+        "set alarm for", "create alarm for", "add alarm for",
+        "schedule alarm for", "wake me up at", "remind me at"),
+    ALARM_CANCEL(Group.CLOCK,
+        "cancel alarm", "delete alarm", "remove alarm", "stop alarm",
+        "turn off alarm", "disable alarm"),
+    ALARM_LIST(Group.CLOCK,
+        "list alarms", "show alarms", "what alarms", "alarm list",
+        "upcoming alarms", "scheduled alarms"),
+
+    // Timer intents
+    TIMER_START(Group.CLOCK, EnumSet.of(Slot.TIME, Slot.DURATION),
+        "start timer", "set timer", "create timer", "begin timer",
+        "timer for", "countdown for"),
+    TIMER_STOP(Group.CLOCK,
+        "stop timer", "cancel timer", "end timer", "pause timer"),
+    TIMER_SNOOZE(Group.CLOCK,
+        "snooze timer", "extend timer", "add time to timer"),
+
+    // Do Not Disturb intents
+    DND_ON(Group.AUDIO,
+        "turn on do not disturb", "enable do not disturb", "activate do not disturb",
+        "silent mode", "quiet mode", "do not disturb on"),
+    DND_OFF(Group.AUDIO,
+        "turn off do not disturb", "disable do not disturb", "deactivate do not disturb",
+        "normal mode", "do not disturb off"),
+
+    // Theme intents
+    THEME_DARK(Group.DISPLAY,
+        "dark theme", "dark mode", "switch to dark", "enable dark theme",
+        "turn on dark mode", "dark appearance"),
+    THEME_LIGHT(Group.DISPLAY,
+        "light theme", "light mode", "switch to light", "enable light theme",
+        "turn on light mode", "light appearance"),
+
+    // Volume intents (enhanced)
+    RINGTONE_VOLUME_UP(Group.AUDIO,
+        "increase ringtone volume", "turn up ringtone", "ringtone louder",
+        "increase call volume", "turn up call volume"),
+    RINGTONE_VOLUME_DOWN(Group.AUDIO,
+        "decrease ringtone volume", "turn down ringtone", "ringtone quieter",
+        "decrease call volume", "turn down call volume"),
+    ALARM_VOLUME_UP(Group.AUDIO,
+        "increase alarm volume", "turn up alarm", "alarm louder",
+        "increase alarm sound", "turn up alarm sound"),
+    ALARM_VOLUME_DOWN(Group.AUDIO,
+        "decrease alarm volume", "turn down alarm", "alarm quieter",
+        "decrease alarm sound", "turn down alarm sound"),
+
+    // Mobile data and hotspot intents
+    MOBILE_DATA_ON(Group.CONNECTIVITY,
+        "turn on mobile data", "enable mobile data", "activate mobile data",
+        "turn on cellular data", "enable cellular data"),
+    MOBILE_DATA_OFF(Group.CONNECTIVITY,
+        "turn off mobile data", "disable mobile data", "deactivate mobile data",
+        "turn off cellular data", "disable cellular data"),
+    HOTSPOT_ON(Group.CONNECTIVITY,
+        "turn on hotspot", "enable hotspot", "activate hotspot",
+        "turn on wifi hotspot", "enable wifi sharing"),
+    HOTSPOT_OFF(Group.CONNECTIVITY,
+        "turn off hotspot", "disable hotspot", "deactivate hotspot",
+        "turn off wifi hotspot", "disable wifi sharing"),
+
+    // Airplane mode intents
+    AIRPLANE_MODE_ON(Group.CONNECTIVITY,
+        "turn on airplane mode", "enable airplane mode", "activate airplane mode",
+        "flight mode on", "airplane mode"),
+    AIRPLANE_MODE_OFF(Group.CONNECTIVITY,
+        "turn off airplane mode", "disable airplane mode", "deactivate airplane mode",
+        "flight mode off", "normal mode"),
+
+    // Screenshot intents
+    SCREENSHOT(Group.CAMERA,
+        "take screenshot", "capture screen", "screenshot", "screen capture",
+        "take screen shot", "capture screenshot"),
+
+    // App launching intents
+    OPEN_APP(Group.APPS, EnumSet.of(Slot.APP_NAME),
+        "open app", "launch app", "start app", "run app",
+        "open", "launch", "start"),
+
+    // Camera capture intents
+    CAMERA_PHOTO(Group.CAMERA,
+        "take photo", "take picture", "capture photo", "snap photo",
+        "take a photo", "take a picture"),
+    CAMERA_VIDEO(Group.CAMERA,
+        "take video", "record video", "start recording", "video recording",
+        "take a video", "record a video"),
+
+    // Phone and SMS intents
+    CALL_PHONE(Group.COMMUNICATION, EnumSet.of(Slot.CONTACT),
+        "call", "phone call", "make a call", "dial",
+        "ring", "contact"),
+    SEND_SMS(Group.COMMUNICATION, EnumSet.of(Slot.MESSAGE),
+        "send message", "send sms", "text", "send text",
+        "message", "sms"),
+    READ_MESSAGES(Group.COMMUNICATION,
+        "read messages", "show messages", "unread messages",
+        "check messages", "message list"),
+
+    // Calendar intents
+    CREATE_EVENT(Group.COMMUNICATION,
+        "create event", "add event", "schedule event", "calendar event",
+        "add to calendar", "schedule meeting"),
+    CREATE_REMINDER(Group.CLOCK,
+        "create reminder", "add reminder", "set reminder", "remind me",
+        "add reminder", "schedule reminder"),
+
+    // Display and personalization intents
+    BRIGHTNESS_UP(Group.DISPLAY,
+        "increase brightness", "turn up brightness", "brighter", "brighten screen",
+        "increase screen brightness", "make it brighter"),
+    BRIGHTNESS_DOWN(Group.DISPLAY,
+        "decrease brightness", "turn down brightness", "dimmer", "dim screen",
+        "decrease screen brightness", "make it dimmer"),
+    BRIGHTNESS_AUTO(Group.DISPLAY,
+        "auto brightness", "automatic brightness", "adaptive brightness",
+        "turn on auto brightness", "enable auto brightness"),
+    CHANGE_WALLPAPER(Group.DISPLAY,
+        "change wallpaper", "set wallpaper", "new wallpaper", "wallpaper",
+        "change background", "set background"),
+
+    // System toggles
+    AUTO_ROTATE_ON(Group.DISPLAY,
+        "turn on auto rotate", "enable auto rotate", "activate auto rotate",
+        "auto rotation on", "screen rotation on"),
+    AUTO_ROTATE_OFF(Group.DISPLAY,
+        "turn off auto rotate", "disable auto rotate", "deactivate auto rotate",
+        "auto rotation off", "screen rotation off"),
+    NFC_ON(Group.CONNECTIVITY,
+        "turn on nfc", "enable nfc", "activate nfc", "nfc on"),
+    NFC_OFF(Group.CONNECTIVITY,
+        "turn off nfc", "disable nfc", "deactivate nfc", "nfc off"),
+    LOCATION_ON(Group.CONNECTIVITY,
+        "turn on location", "enable location", "activate location", "gps on",
+        "location services on", "turn on gps"),
+    LOCATION_OFF(Group.CONNECTIVITY,
+        "turn off location", "disable location", "deactivate location", "gps off",
+        "location services off", "turn off gps"),
+    BATTERY_SAVER_ON(Group.DISPLAY,
+        "turn on battery saver", "enable battery saver", "activate battery saver",
+        "power saving mode", "battery saver on"),
+    BATTERY_SAVER_OFF(Group.DISPLAY,
+        "turn off battery saver", "disable battery saver", "deactivate battery saver",
+        "normal power mode", "battery saver off"),
+
+    // Sound profiles
+    SOUND_RING(Group.AUDIO,
+        "ring mode", "normal mode", "sound on", "ringtone on",
+        "turn on sound", "enable sound"),
+    SOUND_VIBRATE(Group.AUDIO,
+        "vibrate mode", "vibration mode", "vibrate only", "vibrate",
+        "turn on vibrate", "enable vibrate"),
+    SOUND_SILENT(Group.AUDIO,
+        "silent mode", "mute mode", "silent", "mute",
+        "turn off sound", "disable sound"),
+
+    // Screen recording
+    SCREEN_RECORD(Group.CAMERA,
+        "start screen recording", "record screen", "screen record",
+        "begin recording", "start recording"),
+
+    // Notes and lists
+    ADD_NOTE(Group.APPS, EnumSet.of(Slot.NOTE),
+        "add note", "create note", "write note", "note",
+        "take note", "make note"),
+    ADD_TO_LIST(Group.APPS, EnumSet.of(Slot.ITEM),
+        "add to list", "shopping list", "add item", "list",
+        "add to shopping list", "grocery list"),
+
+    // Media control
+    MEDIA_PLAY(Group.MEDIA,
+        "play music", "start music", "play song", "resume music",
+        "play", "start playing"),
+    MEDIA_PAUSE(Group.MEDIA,
+        "pause music", "stop music", "pause song", "pause",
+        "stop playing", "pause playing"),
+    MEDIA_NEXT(Group.MEDIA,
+        "next song", "next track", "skip song", "next",
+        "skip track", "next music"),
+    MEDIA_PREVIOUS(Group.MEDIA,
+        "previous song", "previous track", "back song", "previous",
+        "go back", "previous music"),
+
+    // Weather and information
+    WEATHER_CURRENT(Group.APPS,
+        "current weather", "weather now", "what's the weather",
+        "weather today", "how's the weather"),
+    WEATHER_FORECAST(Group.APPS,
+        "weather forecast", "tomorrow's weather", "weather tomorrow",
+        "forecast", "weather prediction"),
+
+    // Navigation
+    NAVIGATE_TO(Group.APPS, EnumSet.of(Slot.LOCATION),
+        "navigate to", "directions to", "go to", "route to",
+        "how to get to", "drive to"),
+    COMMUTE_TIME(Group.APPS,
+        "commute time", "travel time", "how long to get to",
+        "time to work", "time to home"),
+
+    // Translation
+    TRANSLATE(Group.APPS, EnumSet.of(Slot.TEXT),
+        "translate", "what does this mean", "how do you say",
+        "translate to", "language translation"),
+
+    // Smart home control
+    SMART_HOME_CONTROL(Group.APPS,
+        "turn on lights", "turn off lights", "smart home",
+        "control lights", "home automation"),
+
+    // Pomodoro timer
+    POMODORO_START(Group.CLOCK,
+        "start pomodoro", "begin pomodoro", "pomodoro timer",
+        "focus session", "work session"),
+
+    // Nothing matched; has no patterns and no handler
+    UNKNOWN(null);
+
+    /**
+     * Handler groups. Intents that touch the same system services share one handler
+     * class, which is only loaded the first time one of its intents is dispatched.
+     */
+    public enum Group {
+        CONNECTIVITY,
+        CAMERA,
+        AUDIO,
+        CLOCK,
+        DISPLAY,
+        COMMUNICATION,
+        MEDIA,
+        APPS
+    }
+
+    // Cached copy of values() so hot paths don't clone the array on every call
+    static final CommandIntent[] VALUES = values();
+    public static final int COUNT = VALUES.length;
+
+    private final Group mGroup;
+    private final Set<Slot> mSlots;
+    private final List<String> mPatterns;
+    private final boolean mFreeText;
+
+    CommandIntent(Group group, String... patterns) {
+        this(group, EnumSet.noneOf(Slot.class), patterns);
+    }
+
+    CommandIntent(Group group, Set<Slot> slots, String... patterns) {
+        mGroup = group;
+        mSlots = Collections.unmodifiableSet(slots);
+        mPatterns = Collections.unmodifiableList(Arrays.asList(patterns));
+        boolean freeText = false;
+        for (Slot slot : slots) {
+            freeText |= slot.isFreeText();
+        }
+        mFreeText = freeText;
+    }
+
+    public Group getGroup() {
+        return mGroup;
+    }
+
+    public Set<Slot> getSlots() {
+        return mSlots;
+    }
+
+    /** Whether the command carries dictated text, such as a message or a note. */
+    public boolean takesFreeText() {
+        return mFreeText;
+    }
+
+    /** English phrases for this intent. */
+    public List<String> getPatterns() {
+        return mPatterns;
+    }
+}
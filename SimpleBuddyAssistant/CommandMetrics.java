@@ -0,0 +1,228 @@
+package com.buddy.assistant;
+
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counts and latencies of executed commands, per intent, as printed by
+ * {@code adb shell dumpsys activity service com.buddy.assistant/.BuddyAssistantService}.
+ *
+ * Every {@link CommandEngine} records here. Counters are {@link LongAdder}s, so engines
+ * on different threads never contend on a lock. Latencies go into histograms with
+ * power-of-two buckets, which is precise enough to tell 200 µs from 2 ms from 2 s.
+ */
+public final class CommandMetrics {
+
+    /** The parts of a command's latency that are measured. */
+    public enum Stage {
+        /** Routine lookup and classification. */
+        CLASSIFY,
+        /** From dispatch until the action has taken effect. */
+        EXECUTE,
+        /** From when the command was received, including any time queued. */
+        TOTAL
+    }
+
+    /** Counts of latencies in power-of-two buckets of microseconds. */
+    public static final class Histogram {
+        // Bucket i counts latencies below 2^i µs; the last one also everything longer (over a minute)
+        static final int BUCKETS = 27;
+
+        private final LongAdder[] mCounts = new LongAdder[BUCKETS];
+
+        Histogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                mCounts[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            int bucket = 64 - Long.numberOfLeadingZeros(micros);
+            mCounts[Math.min(bucket, BUCKETS - 1)].increment();
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (LongAdder bucket : mCounts) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * Returns the upper bound in microseconds of the bucket holding the given fraction
+         * of latencies, e.g. 0.99 for the 99th percentile, or 0 if nothing was recorded.
+         */
+        public long getPercentileMicros(double fraction) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = mCounts[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return 1L << i;
+                }
+            }
+            return 1L << (BUCKETS - 1);
+        }
+
+        void add(Histogram other) {
+            for (int i = 0; i < BUCKETS; i++) {
+                mCounts[i].add(other.mCounts[i].sum());
+            }
+        }
+
+        void dumpBuckets(PrintWriter pw) {
+            long previous = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = mCounts[i].sum();
+                if (count > 0) {
+                    pw.println("    " + formatMicros(previous) + " - " + formatMicros(1L << i) + ": " + count);
+                }
+                previous = 1L << i;
+            }
+        }
+    }
+
+    // One row per intent; UNKNOWN also counts commands handled by the fallback
+    private static final class Row {
+        final LongAdder invocations = new LongAdder();
+        final LongAdder successes = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final Histogram[] latency = new Histogram[Stage.values().length];
+
+        Row() {
+            for (int i = 0; i < latency.length; i++) {
+                latency[i] = new Histogram();
+            }
+        }
+    }
+
+    /** The row of routine runs, after those of the intents. */
+    static final int ROUTINE_ROW = CommandIntent.COUNT;
+
+    private static final CommandMetrics sInstance = new CommandMetrics();
+
+    // Rows are created on first use, since most intents are never used on a given device
+    private final AtomicReferenceArray<Row> mRows = new AtomicReferenceArray<>(CommandIntent.COUNT + 1);
+    private volatile long mSinceMillis = System.currentTimeMillis();
+    // Not cleared by reset(), as it measures startup
+    private final AtomicLong mFirstExecutionNanos = new AtomicLong();
+
+    private CommandMetrics() {
+    }
+
+    public static CommandMetrics get() {
+        return sInstance;
+    }
+
+    static int rowOf(CommandIntent intent) {
+        return intent.ordinal();
+    }
+
+    void recordClassification(int row, long nanos) {
+        getRow(row).latency[Stage.CLASSIFY.ordinal()].record(nanos);
+    }
+
+    void recordExecution(int row, long executeNanos, long totalNanos, boolean success) {
+        Row r = getRow(row);
+        r.invocations.increment();
+        (success ? r.successes : r.failures).increment();
+        r.latency[Stage.EXECUTE.ordinal()].record(executeNanos);
+        r.latency[Stage.TOTAL.ordinal()].record(totalNanos);
+        if (mFirstExecutionNanos.get() == 0) {
+            mFirstExecutionNanos.compareAndSet(0, System.nanoTime());
+        }
+    }
+
+    /** The {@link System#nanoTime} at which the process's first command finished, or 0. */
+    public long getFirstExecutionNanos() {
+        return mFirstExecutionNanos.get();
+    }
+
+    private Row getRow(int row) {
+        Row r = mRows.get(row);
+        if (r == null) {
+            mRows.compareAndSet(row, null, new Row());
+            r = mRows.get(row);
+        }
+        return r;
+    }
+
+    /** Forgets everything recorded so far. */
+    public void reset() {
+        for (int i = 0; i < mRows.length(); i++) {
+            mRows.set(i, null);
+        }
+        mSinceMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Prints a table of counts and p50/p99 latencies per used intent, followed by the
+     * histograms of all commands together.
+     */
+    public void dump(PrintWriter pw) {
+        pw.println("Command metrics since "
+                + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.ROOT).format(new Date(mSinceMillis)) + ":");
+        pw.println(String.format(Locale.ROOT, "  %-20s %7s %7s %7s  %-17s %-17s %-17s",
+                "intent", "count", "ok", "failed", "classify p50/p99", "execute p50/p99", "total p50/p99"));
+
+        Histogram[] overall = new Histogram[Stage.values().length];
+        for (int i = 0; i < overall.length; i++) {
+            overall[i] = new Histogram();
+        }
+        CommandIntent[] intents = CommandIntent.values();
+        for (int i = 0; i < mRows.length(); i++) {
+            Row row = mRows.get(i);
+            if (row == null) {
+                continue;
+            }
+            String name = i == ROUTINE_ROW ? "(routine)" : intents[i].name();
+            pw.println(String.format(Locale.ROOT, "  %-20s %7d %7d %7d  %-17s %-17s %-17s",
+                    name, row.invocations.sum(), row.successes.sum(), row.failures.sum(),
+                    percentiles(row.latency[Stage.CLASSIFY.ordinal()]),
+                    percentiles(row.latency[Stage.EXECUTE.ordinal()]),
+                    percentiles(row.latency[Stage.TOTAL.ordinal()])));
+            for (int stage = 0; stage < overall.length; stage++) {
+                overall[stage].add(row.latency[stage]);
+            }
+        }
+
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = overall[stage.ordinal()];
+            pw.println("  " + stage.name().toLowerCase(Locale.ROOT) + " latency, all commands ("
+                    + histogram.getCount() + "):");
+            histogram.dumpBuckets(pw);
+        }
+    }
+
+    private static String percentiles(Histogram histogram) {
+        if (histogram.getCount() == 0) {
+            return "-";
+        }
+        return formatMicros(histogram.getPercentileMicros(0.5)) + "/" + formatMicros(histogram.getPercentileMicros(0.99));
+    }
+
+    static String formatMicros(long micros) {
+        if (micros < 1000) {
+            return micros + "us";
+        } else if (micros < 1000000) {
+            return (micros / 1000) + "ms";
+        }
+        return String.format(Locale.ROOT, "%.1fs", micros / 1000000.0);
+    }
+}
@@ -0,0 +1,18 @@
+package com.buddy.assistant;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The thread commands run on. {@link CommandEngine} and {@link RoutineRunner} call
+ * {@link #dispatch} from tasks given to {@link #execute}; the app's implementation is
+ * {@link CommandExecutor}.
+ */
+public interface CommandRunner extends Executor {
+
+    /**
+     * Executes a classified command and returns a future that completes when the action
+     * has taken effect. Failures complete it with the error text.
+     */
+    CompletableFuture<String> dispatch(AICommandProcessor.CommandResult result);
+}
@@ -0,0 +1,175 @@
+package com.buddy.assistant;
+
+import android.content.Context;
+import android.content.Intent;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Handles calls, messages and calendar events.
+ */
+class CommunicationHandler extends BaseCommandHandler {
+
+    private static final Pattern PHONE_NUMBER = Pattern.compile("\\+?[\\d ]+");
+    // Words between the trigger and the recipient, and between the recipient and the text
+    private static final Set<String> SMS_LEAD_WORDS = new HashSet<>(Arrays.asList("a", "message", "sms", "text", "to"));
+    private static final Set<String> SMS_BODY_LEAD_WORDS = new HashSet<>(Arrays.asList("saying", "that"));
+
+    CommunicationHandler(Context context) {
+        super(context);
+    }
+
+    @Override
+    public String handle(CommandIntent intent, Map<String, String> params) {
+        switch (intent) {
+            case CALL_PHONE:
+                return makeCall(params.get("contact"));
+            case SEND_SMS:
+                return sendSMS(params.get("message"));
+            case READ_MESSAGES:
+                return readMessages();
+            case CREATE_EVENT:
+                return createCalendarEvent();
+            default:
+                return "❌ AI Command not implemented: " + intent;
+        }
+    }
+    
+    @Override
+    public void prepare(CommandIntent intent) {
+        switch (intent) {
+            case CALL_PHONE:
+                ContactIndex.get(mContext).prepare();
+                LaunchTargetCache.get(mContext).handlesIntent(LaunchTargetCache.Capability.DIALER);
+                break;
+            case SEND_SMS:
+                ContactIndex.get(mContext).prepare();
+                break;
+            case CREATE_EVENT:
+                LaunchTargetCache.get(mContext).handlesIntent(LaunchTargetCache.Capability.CALENDAR);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private String makeCall(String contact) {
+        try {
+            if (contact == null || contact.isEmpty()) {
+                return "❌ Please specify who to call";
+            }
+            
+            String name = contact;
+            String number = contact.replace(" ", "");
+            if (!PHONE_NUMBER.matcher(contact).matches()) {
+                ContactIndex.Match match = ContactIndex.get(mContext).find(contact);
+                if (match == null) {
+                    return "❌ No contact found for " + contact;
+                }
+                if (!match.isExact()) {
+                    // A guess from a prefix or sound-alike; let the user check it before it rings
+                    return dialNumber(match.getNumber());
+                }
+                name = match.getName();
+                number = match.getNumber();
+            }
+            
+            try {
+                Intent intent = new Intent(Intent.ACTION_CALL);
+                intent.setData(android.net.Uri.parse("tel:" + number));
+                startActivity(intent);
+                return "✅ Calling " + name;
+            } catch (SecurityException e) {
+                // Without CALL_PHONE the dialer can still take the number
+                return dialNumber(number);
+            }
+        } catch (Exception e) {
+            return "❌ Could not make call: " + e.getMessage();
+        }
+    }
+    
+    private String dialNumber(String number) {
+        try {
+            LaunchTargetCache targets = LaunchTargetCache.get(mContext);
+            Intent intent = targets.newIntent(LaunchTargetCache.Capability.DIALER);
+            if (intent == null) {
+                return "❌ No dialer app found";
+            }
+            if (targets.handlesIntent(LaunchTargetCache.Capability.DIALER)) {
+                intent.setData(android.net.Uri.parse("tel:" + number));
+            }
+            startActivity(intent);
+            return "✅ Opening dialer for " + number;
+        } catch (Exception e) {
+            return "❌ Could not make call: " + e.getMessage();
+        }
+    }
+    
+    private String sendSMS(String message) {
+        try {
+            // "text mom on my way", "send a message to john saying hi"
+            String[] words = message != null ? message.split(" ") : new String[0];
+            int start = skipWords(words, 0, SMS_LEAD_WORDS);
+            ContactIndex.Match recipient = null;
+            if (start < words.length) {
+                recipient = ContactIndex.get(mContext).findAtStart(Arrays.copyOfRange(words, start, words.length));
+            }
+            
+            Intent intent = new Intent(Intent.ACTION_SENDTO);
+            if (recipient != null) {
+                intent.setData(android.net.Uri.parse("smsto:" + recipient.getNumber()));
+                start = skipWords(words, start + recipient.getWordCount(), SMS_BODY_LEAD_WORDS);
+                message = String.join(" ", Arrays.copyOfRange(words, start, words.length));
+            } else {
+                intent.setData(android.net.Uri.parse("sms:"));
+            }
+            if (message != null && !message.isEmpty()) {
+                intent.putExtra("sms_body", message);
+            } else {
+                message = null;
+            }
+            startActivity(intent);
+            return (recipient != null ? "✅ Opening SMS to " + recipient.getName() : "✅ Opening SMS app")
+                    + (message != null ? " with message: " + message : "");
+        } catch (Exception e) {
+            return "❌ Could not open SMS: " + e.getMessage();
+        }
+    }
+    
+    // Returns the index of the first word from start on that isn't one of skip
+    private static int skipWords(String[] words, int start, Set<String> skip) {
+        while (start < words.length && skip.contains(words[start])) {
+            start++;
+        }
+        return start;
+    }
+    
+    private String readMessages() {
+        try {
+            Intent intent = new Intent(Intent.ACTION_MAIN);
+            intent.addCategory(Intent.CATEGORY_APP_MESSAGING);
+            startActivity(intent);
+            return "✅ Opening messages app";
+        } catch (Exception e) {
+            return "❌ Could not open messages: " + e.getMessage();
+        }
+    }
+    
+    private String createCalendarEvent() {
+        try {
+            LaunchTargetCache targets = LaunchTargetCache.get(mContext);
+            Intent intent = targets.newIntent(LaunchTargetCache.Capability.CALENDAR);
+            if (intent == null) {
+                return "❌ No calendar app found";
+            }
+            startActivity(intent);
+            return targets.handlesIntent(LaunchTargetCache.Capability.CALENDAR)
+                    ? "✅ Opening calendar to create event" : "✅ Opening calendar app";
+        } catch (Exception e) {
+            return "❌ Could not open calendar: " + e.getMessage();
+        }
+    }
+}
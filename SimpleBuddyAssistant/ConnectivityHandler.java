@@ -0,0 +1,235 @@
+package com.buddy.assistant;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handles Bluetooth, WiFi, mobile data, hotspot, airplane mode, NFC and location.
+ */
+class ConnectivityHandler extends HalCommandHandler {
+
+    // Turning Bluetooth on waits for the user to accept the system dialog
+    private static final long BLUETOOTH_ON_TIMEOUT_MS = 30000;
+    private static final long RADIO_TIMEOUT_MS = 10000;
+
+    ConnectivityHandler(DeviceHal hal) {
+        super(hal);
+    }
+
+    @Override
+    public String handle(CommandIntent intent, Map<String, String> params) {
+        switch (intent) {
+            case BLUETOOTH_ON:
+                return enableBluetooth();
+            case BLUETOOTH_OFF:
+                return disableBluetooth();
+            case WIFI_ON:
+                return enableWifi();
+            case WIFI_OFF:
+                return disableWifi();
+            case MOBILE_DATA_ON:
+                return enableMobileData();
+            case MOBILE_DATA_OFF:
+                return disableMobileData();
+            case HOTSPOT_ON:
+                return enableHotspot();
+            case HOTSPOT_OFF:
+                return disableHotspot();
+            case AIRPLANE_MODE_ON:
+                return enableAirplaneMode();
+            case AIRPLANE_MODE_OFF:
+                return disableAirplaneMode();
+            case NFC_ON:
+                return enableNFC();
+            case NFC_OFF:
+                return disableNFC();
+            case LOCATION_ON:
+                return enableLocation();
+            case LOCATION_OFF:
+                return disableLocation();
+            default:
+                return "❌ AI Command not implemented: " + intent;
+        }
+    }
+    
+    @Override
+    public CompletableFuture<String> handleAsync(CommandIntent intent, Map<String, String> params) {
+        DeviceHal.Bluetooth bluetooth = mHal.bluetooth();
+        DeviceHal.Wifi wifi = mHal.wifi();
+        switch (intent) {
+            case BLUETOOTH_ON:
+                return whenState(handle(intent, params), "✅ Bluetooth turned ON",
+                        () -> bluetooth.getState() == DeviceHal.RadioState.ON,
+                        BLUETOOTH_ON_TIMEOUT_MS, "Bluetooth did not turn on");
+            case BLUETOOTH_OFF:
+                return whenState(handle(intent, params), "✅ Bluetooth turned OFF",
+                        () -> bluetooth.getState() == DeviceHal.RadioState.OFF,
+                        RADIO_TIMEOUT_MS, "Bluetooth did not turn off");
+            case WIFI_ON:
+                return whenState(handle(intent, params), "✅ WiFi turned ON",
+                        () -> wifi.getState() == DeviceHal.RadioState.ON,
+                        RADIO_TIMEOUT_MS, "WiFi did not turn on");
+            case WIFI_OFF:
+                return whenState(handle(intent, params), "✅ WiFi turned OFF",
+                        () -> wifi.getState() == DeviceHal.RadioState.OFF,
+                        RADIO_TIMEOUT_MS, "WiFi did not turn off");
+            default:
+                return super.handleAsync(intent, params);
+        }
+    }
+    
+    @Override
+    public boolean needsMainThread(CommandIntent intent) {
+        return intent == CommandIntent.BLUETOOTH_ON && mHal.bluetooth().requestEnableNeedsMainThread();
+    }
+    
+    private String enableBluetooth() {
+        try {
+            DeviceHal.Bluetooth bluetooth = mHal.bluetooth();
+            if (!bluetooth.isAvailable()) {
+                return "❌ Bluetooth not available on this device";
+            }
+            
+            if (!DeviceHal.isOn(bluetooth.getState())) {
+                bluetooth.requestEnable();
+                return "✅ Requesting Bluetooth permission...";
+            } else {
+                return "✅ Bluetooth is already ON";
+            }
+        } catch (Exception e) {
+            return "❌ Could not enable Bluetooth: " + e.getMessage();
+        }
+    }
+    
+    private String disableBluetooth() {
+        try {
+            DeviceHal.Bluetooth bluetooth = mHal.bluetooth();
+            if (DeviceHal.isOn(bluetooth.getState())) {
+                bluetooth.disable();
+                return "✅ Bluetooth turned OFF";
+            } else {
+                return "✅ Bluetooth is already OFF";
+            }
+        } catch (Exception e) {
+            return "❌ Could not disable Bluetooth: " + e.getMessage();
+        }
+    }
+    
+    private String enableWifi() {
+        try {
+            DeviceHal.Wifi wifi = mHal.wifi();
+            if (wifi.isAvailable() && !DeviceHal.isOn(wifi.getState())) {
+                wifi.setEnabled(true);
+                return "✅ WiFi turned ON";
+            } else {
+                return "✅ WiFi is already ON";
+            }
+        } catch (Exception e) {
+            return "❌ Could not enable WiFi: " + e.getMessage();
+        }
+    }
+    
+    private String disableWifi() {
+        try {
+            DeviceHal.Wifi wifi = mHal.wifi();
+            if (DeviceHal.isOn(wifi.getState())) {
+                wifi.setEnabled(false);
+                return "✅ WiFi turned OFF";
+            } else {
+                return "✅ WiFi is already OFF";
+            }
+        } catch (Exception e) {
+            return "❌ Could not disable WiFi: " + e.getMessage();
+        }
+    }
+    
+    private String enableMobileData() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.MOBILE_DATA_SETTINGS);
+            return "✅ Opening mobile data settings";
+        } catch (Exception e) {
+            return "❌ Could not access mobile data settings: " + e.getMessage();
+        }
+    }
+    
+    private String disableMobileData() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.MOBILE_DATA_SETTINGS);
+            return "✅ Opening mobile data settings";
+        } catch (Exception e) {
+            return "❌ Could not access mobile data settings: " + e.getMessage();
+        }
+    }
+    
+    private String enableHotspot() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.WIRELESS_SETTINGS);
+            return "✅ Opening wireless settings for hotspot";
+        } catch (Exception e) {
+            return "❌ Could not access hotspot settings: " + e.getMessage();
+        }
+    }
+    
+    private String disableHotspot() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.WIRELESS_SETTINGS);
+            return "✅ Opening wireless settings for hotspot";
+        } catch (Exception e) {
+            return "❌ Could not access hotspot settings: " + e.getMessage();
+        }
+    }
+    
+    private String enableAirplaneMode() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.AIRPLANE_MODE_SETTINGS);
+            return "✅ Opening airplane mode settings";
+        } catch (Exception e) {
+            return "❌ Could not access airplane mode: " + e.getMessage();
+        }
+    }
+    
+    private String disableAirplaneMode() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.AIRPLANE_MODE_SETTINGS);
+            return "✅ Opening airplane mode settings";
+        } catch (Exception e) {
+            return "❌ Could not access airplane mode: " + e.getMessage();
+        }
+    }
+    
+    private String enableNFC() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.NFC_SETTINGS);
+            return "✅ Opening NFC settings";
+        } catch (Exception e) {
+            return "❌ Could not access NFC settings: " + e.getMessage();
+        }
+    }
+    
+    private String disableNFC() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.NFC_SETTINGS);
+            return "✅ Opening NFC settings";
+        } catch (Exception e) {
+            return "❌ Could not access NFC settings: " + e.getMessage();
+        }
+    }
+    
+    private String enableLocation() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.LOCATION_SETTINGS);
+            return "✅ Opening location settings";
+        } catch (Exception e) {
+            return "❌ Could not access location settings: " + e.getMessage();
+        }
+    }
+    
+    private String disableLocation() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.LOCATION_SETTINGS);
+            return "✅ Opening location settings";
+        } catch (Exception e) {
+            return "❌ Could not access location settings: " + e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,591 @@
+package com.buddy.assistant;
+
+import android.Manifest;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a spoken contact name into a phone number without querying the contacts provider
+ * per command.
+ *
+ * Display name words, phonetic name words and a sound-alike key of each ("jon" and "john")
+ * go into prefix tries pointing at contacts, so "call mom mobile" or "text ana on my way"
+ * is a few trie walks. Phone rows are loaded in pages on the {@link BackgroundThread};
+ * after that a {@link ContentObserver} triggers a sync of just the contacts whose update
+ * or delete timestamp is newer than the last sync. Lookups read an immutable snapshot.
+ */
+public final class ContactIndex {
+    private static final String TAG = "ContactIndex";
+
+    private static final int PAGE_SIZE = 500;
+    // Contact edits arrive as several notifications in a row
+    private static final long SYNC_DELAY_MS = 500;
+    // Longest name tried when a contact is followed by other words, as in an SMS body
+    private static final int MAX_NAME_WORDS = 3;
+    // Shorter prefixes match too many names to be useful
+    private static final int MIN_PREFIX_CHARS = 2;
+
+    private static final int SCORE_EXACT = 3;
+    private static final int SCORE_PREFIX = 2;
+    private static final int SCORE_SOUND = 1;
+
+    private static final String[] PHONE_PROJECTION = {
+        Phone._ID, Phone.CONTACT_ID, Phone.DISPLAY_NAME_PRIMARY, Phone.PHONETIC_NAME,
+        Phone.NUMBER, Phone.TYPE, Phone.IS_PRIMARY, Phone.IS_SUPER_PRIMARY
+    };
+
+    // Spoken after a name to pick one of its numbers: "call mom mobile"
+    private static final Map<String, Integer> NUMBER_TYPES = new HashMap<>();
+    static {
+        NUMBER_TYPES.put("mobile", Phone.TYPE_MOBILE);
+        NUMBER_TYPES.put("cell", Phone.TYPE_MOBILE);
+        NUMBER_TYPES.put("home", Phone.TYPE_HOME);
+        NUMBER_TYPES.put("work", Phone.TYPE_WORK);
+        NUMBER_TYPES.put("office", Phone.TYPE_WORK);
+        NUMBER_TYPES.put("main", Phone.TYPE_MAIN);
+        NUMBER_TYPES.put("other", Phone.TYPE_OTHER);
+    }
+
+    private static ContactIndex sInstance;
+
+    private final Context mContext;
+    private final ContentResolver mResolver;
+    private final Handler mHandler;
+    private volatile Snapshot mSnapshot;
+    // Set by the background thread when a sync stopped short, so a lookup may start another
+    private volatile boolean mGaveUp;
+
+    // Owned by the background thread
+    private final Map<Long, Contact> mContacts = new HashMap<>();
+    private boolean mLoading;
+    private boolean mSyncPending;
+    private boolean mObserving;
+    private long mSyncedAt;
+
+    private final Runnable mSync = this::sync;
+
+    private final ContentObserver mObserver;
+
+    /** A contact and the number picked for what was said. */
+    public static final class Match {
+        private final String mName;
+        private final String mNumber;
+        private final int mWordCount;
+        private final boolean mExact;
+
+        Match(String name, String number, int wordCount, boolean exact) {
+            mName = name;
+            mNumber = number;
+            mWordCount = wordCount;
+            mExact = exact;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public String getNumber() {
+            return mNumber;
+        }
+
+        /** How many of the spoken words named the contact or its number type. */
+        public int getWordCount() {
+            return mWordCount;
+        }
+
+        /** Whether every word said is a word of the name, rather than a prefix or sound-alike of one. */
+        public boolean isExact() {
+            return mExact;
+        }
+    }
+
+    private static final class Contact {
+        final long id;
+        final String name;
+        final String[] words;
+        final List<String> numbers = new ArrayList<>(1);
+        final List<Integer> types = new ArrayList<>(1);
+        // Index into numbers of the one to use when no type is asked for
+        int preferred;
+        int preferredRank = -1;
+
+        Contact(long id, String name, String phoneticName) {
+            this.id = id;
+            this.name = name;
+            String[] words = AppLabelIndex.tokenize(name);
+            if (phoneticName != null) {
+                String[] phonetic = AppLabelIndex.tokenize(phoneticName);
+                words = Arrays.copyOf(words, words.length + phonetic.length);
+                System.arraycopy(phonetic, 0, words, words.length - phonetic.length, phonetic.length);
+            }
+            this.words = words;
+        }
+
+        // Only called while the contact is still private to the background thread
+        void addNumber(String number, int type, boolean primary, boolean superPrimary) {
+            int rank = superPrimary ? 3 : primary ? 2 : type == Phone.TYPE_MOBILE ? 1 : 0;
+            if (rank > preferredRank) {
+                preferred = numbers.size();
+                preferredRank = rank;
+            }
+            numbers.add(number);
+            types.add(type);
+        }
+
+        String numberFor(int type) {
+            if (type >= 0) {
+                int i = types.indexOf(type);
+                if (i >= 0) {
+                    return numbers.get(i);
+                }
+            }
+            return numbers.get(preferred);
+        }
+    }
+
+    /**
+     * Prefix tree from keys to contact positions. Children are kept in sorted arrays and
+     * found by binary search, which is smaller than a map per node.
+     */
+    private static final class Trie {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_NODES = new Node[0];
+        private static final int[] NO_IDS = new int[0];
+
+        static final class Node {
+            char[] keys = NO_KEYS;
+            Node[] children = NO_NODES;
+            int[] ids = NO_IDS;
+        }
+
+        final Node root = new Node();
+
+        void add(String key, int id) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                int pos = Arrays.binarySearch(node.keys, c);
+                if (pos < 0) {
+                    pos = -pos - 1;
+                    Node child = new Node();
+                    node.keys = insert(node.keys, pos, c);
+                    node.children = insert(node.children, pos, child);
+                }
+                node = node.children[pos];
+            }
+            int[] ids = node.ids;
+            // Contacts are added in order, so a repeated word in one name is the last entry
+            if (ids.length == 0 || ids[ids.length - 1] != id) {
+                ids = Arrays.copyOf(ids, ids.length + 1);
+                ids[ids.length - 1] = id;
+                node.ids = ids;
+            }
+        }
+
+        Node find(String key) {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                int pos = Arrays.binarySearch(node.keys, key.charAt(i));
+                node = pos >= 0 ? node.children[pos] : null;
+            }
+            return node;
+        }
+
+        static void collect(Node node, Set<Integer> out) {
+            for (int id : node.ids) {
+                out.add(id);
+            }
+            for (Node child : node.children) {
+                collect(child, out);
+            }
+        }
+
+        private static char[] insert(char[] array, int pos, char value) {
+            char[] result = new char[array.length + 1];
+            System.arraycopy(array, 0, result, 0, pos);
+            result[pos] = value;
+            System.arraycopy(array, pos, result, pos + 1, array.length - pos);
+            return result;
+        }
+
+        private static Node[] insert(Node[] array, int pos, Node value) {
+            Node[] result = new Node[array.length + 1];
+            System.arraycopy(array, 0, result, 0, pos);
+            result[pos] = value;
+            System.arraycopy(array, pos, result, pos + 1, array.length - pos);
+            return result;
+        }
+    }
+
+    private static final class Snapshot {
+        final Contact[] contacts;
+        final Trie words = new Trie();
+        final Trie sounds = new Trie();
+
+        Snapshot(Collection<Contact> source) {
+            contacts = source.toArray(new Contact[0]);
+            // Stable positions make ties resolve the same way on every rebuild
+            Arrays.sort(contacts, (a, b) -> Long.compare(a.id, b.id));
+            for (int i = 0; i < contacts.length; i++) {
+                for (String word : contacts[i].words) {
+                    words.add(word, i);
+                    String sound = soundKey(word);
+                    if (sound != null) {
+                        sounds.add(sound, i);
+                    }
+                }
+            }
+        }
+    }
+
+    private ContactIndex(Context context) {
+        mContext = context;
+        mResolver = context.getContentResolver();
+        mHandler = BackgroundThread.getHandler();
+        mObserver = new ContentObserver(mHandler) {
+            @Override
+            public void onChange(boolean selfChange) {
+                mHandler.removeCallbacks(mSync);
+                mHandler.postDelayed(mSync, SYNC_DELAY_MS);
+            }
+        };
+        mHandler.post(mSync);
+    }
+
+    /** Returns the process-wide index, starting its first load if needed. */
+    public static synchronized ContactIndex get(Context context) {
+        if (sInstance == null) {
+            sInstance = new ContactIndex(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    public boolean isReady() {
+        return mSnapshot != null;
+    }
+
+    /** Loads the index again if the last load gave up, e.g. before READ_CONTACTS was granted. */
+    public void prepare() {
+        snapshotOrRetry();
+    }
+
+    /**
+     * Returns the contact named by {@code spoken}, with the number of the type named after
+     * it if there is one ("mom mobile", "john at work"), or null if nothing matches or the
+     * index hasn't loaded yet.
+     */
+    public Match find(String spoken) {
+        Snapshot snapshot = snapshotOrRetry();
+        String[] words = AppLabelIndex.tokenize(spoken);
+        if (snapshot == null || words.length == 0) {
+            return null;
+        }
+
+        int end = words.length;
+        int type = -1;
+        Integer spokenType = NUMBER_TYPES.get(words[end - 1]);
+        if (spokenType != null && end > 1) {
+            type = spokenType;
+            end--;
+            // "mom on mobile", "john at work"
+            if (end > 1 && (words[end - 1].equals("on") || words[end - 1].equals("at"))) {
+                end--;
+            }
+        }
+
+        Contact contact = lookup(snapshot, words, 0, end, false, SCORE_SOUND);
+        return contact != null ? new Match(contact.name, contact.numberFor(type), words.length,
+                isNamedBy(contact, words, end)) : null;
+    }
+
+    /**
+     * Returns the contact named by the first of {@code words}, trying the longest name
+     * first, or null if they don't start with a contact. {@link Match#getWordCount} says
+     * where the rest of the words begin. Only whole words of a name or its phonetic name
+     * count, since the words after it are a message that could pass for a prefix or
+     * sound-alike of some contact.
+     */
+    public Match findAtStart(String[] words) {
+        Snapshot snapshot = snapshotOrRetry();
+        if (snapshot == null) {
+            return null;
+        }
+        for (int end = Math.min(words.length, MAX_NAME_WORDS); end > 0; end--) {
+            String[] name = AppLabelIndex.tokenize(String.join(" ", Arrays.copyOf(words, end)));
+            if (name.length == 0) {
+                continue;
+            }
+            // Every word has to belong to the name, or "ana on my way" would eat "on"
+            Contact contact = lookup(snapshot, name, 0, name.length, true, SCORE_EXACT);
+            if (contact != null) {
+                return new Match(contact.name, contact.numberFor(-1), end, true);
+            }
+        }
+        return null;
+    }
+
+    private Snapshot snapshotOrRetry() {
+        Snapshot snapshot = mSnapshot;
+        // Only once the last sync has given up; while a load runs, lookups just wait for it.
+        // Without READ_CONTACTS there's nothing to retry until it's granted.
+        if (snapshot == null && mGaveUp && mContext.checkSelfPermission(Manifest.permission.READ_CONTACTS)
+                == PackageManager.PERMISSION_GRANTED) {
+            mGaveUp = false;
+            mHandler.post(mSync);
+        }
+        return snapshot;
+    }
+
+    // Whether each of the first end words is a word of the contact's name
+    private static boolean isNamedBy(Contact contact, String[] words, int end) {
+        for (int w = 0; w < end; w++) {
+            if (!Arrays.asList(contact.words).contains(words[w])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // minScore leaves out weaker kinds of match: SCORE_EXACT takes whole words only
+    private static Contact lookup(Snapshot snapshot, String[] words, int start, int end, boolean requireAll,
+            int minScore) {
+        Map<Integer, int[]> scores = new HashMap<>();
+        Set<Integer> hits = new HashSet<>();
+        int matchedWords = 0;
+        for (int w = start; w < end; w++) {
+            String word = words[w];
+            int score = SCORE_EXACT;
+            hits.clear();
+            Trie.Node node = snapshot.words.find(word);
+            if (node != null) {
+                for (int id : node.ids) {
+                    hits.add(id);
+                }
+                if (hits.isEmpty() && word.length() >= MIN_PREFIX_CHARS && minScore <= SCORE_PREFIX) {
+                    score = SCORE_PREFIX;
+                    Trie.collect(node, hits);
+                }
+            }
+            if (hits.isEmpty() && minScore <= SCORE_SOUND) {
+                String sound = soundKey(word);
+                Trie.Node soundNode = sound != null ? snapshot.sounds.find(sound) : null;
+                if (soundNode != null) {
+                    score = SCORE_SOUND;
+                    for (int id : soundNode.ids) {
+                        hits.add(id);
+                    }
+                }
+            }
+            if (hits.isEmpty()) {
+                continue;
+            }
+            matchedWords++;
+            for (int id : hits) {
+                int[] total = scores.get(id);
+                if (total == null) {
+                    scores.put(id, new int[] {score, 1});
+                } else {
+                    total[0] += score;
+                    total[1]++;
+                }
+            }
+        }
+        // Most of what was said has to be in the name
+        if (matchedWords * 2 < end - start) {
+            return null;
+        }
+
+        Contact best = null;
+        int bestScore = 0;
+        for (Map.Entry<Integer, int[]> candidate : scores.entrySet()) {
+            int[] total = candidate.getValue();
+            if (requireAll && total[1] < end - start) {
+                continue;
+            }
+            Contact contact = snapshot.contacts[candidate.getKey()];
+            // On a tie prefer the name with fewer words left unsaid, then the older contact
+            if (total[0] > bestScore || (total[0] == bestScore && (contact.words.length < best.words.length
+                    || (contact.words.length == best.words.length && contact.id < best.id)))) {
+                best = contact;
+                bestScore = total[0];
+            }
+        }
+        return best;
+    }
+
+    // Runs on the background thread: a full paged load the first time, then only changes
+    private void sync() {
+        if (mLoading) {
+            mSyncPending = true;
+            return;
+        }
+        if (mContext.checkSelfPermission(Manifest.permission.READ_CONTACTS) != PackageManager.PERMISSION_GRANTED) {
+            Log.d(TAG, "READ_CONTACTS not granted, not loading contacts");
+            mGaveUp = true;
+            return;
+        }
+        if (!mObserving) {
+            mResolver.registerContentObserver(ContactsContract.Contacts.CONTENT_URI, true, mObserver);
+            mObserving = true;
+        }
+
+        long since = mSyncedAt;
+        // Taken before querying, so an edit made during the sync is picked up by the next one
+        long now = System.currentTimeMillis();
+        String selection = null;
+        String[] selectionArgs = null;
+        if (mSnapshot != null) {
+            removeChangedContacts(since);
+            selection = Phone.CONTACT_LAST_UPDATED_TIMESTAMP + " > ?";
+            selectionArgs = new String[] {Long.toString(since)};
+        }
+        mLoading = true;
+        loadPage(selection, selectionArgs, -1, new HashMap<>(), now, SystemClock.elapsedRealtime());
+    }
+
+    private void removeChangedContacts(long since) {
+        String[] args = {Long.toString(since)};
+        try (Cursor cursor = mResolver.query(ContactsContract.Contacts.CONTENT_URI,
+                new String[] {ContactsContract.Contacts._ID},
+                ContactsContract.Contacts.CONTACT_LAST_UPDATED_TIMESTAMP + " > ?", args, null)) {
+            while (cursor != null && cursor.moveToNext()) {
+                mContacts.remove(cursor.getLong(0));
+            }
+        }
+        try (Cursor cursor = mResolver.query(ContactsContract.DeletedContacts.CONTENT_URI,
+                new String[] {ContactsContract.DeletedContacts.CONTACT_ID},
+                ContactsContract.DeletedContacts.CONTACT_DELETED_TIMESTAMP + " > ?", args, null)) {
+            while (cursor != null && cursor.moveToNext()) {
+                mContacts.remove(cursor.getLong(0));
+            }
+        }
+    }
+
+    // Reads one page of phone rows after lastRowId, then queues the next so other
+    // background work can run in between
+    private void loadPage(String selection, String[] selectionArgs, long lastRowId,
+            Map<Long, Contact> loaded, long syncTime, long startTime) {
+        String pageSelection = Phone._ID + " > ?" + (selection != null ? " AND " + selection : "");
+        String[] pageArgs = new String[1 + (selectionArgs != null ? selectionArgs.length : 0)];
+        pageArgs[0] = Long.toString(lastRowId);
+        if (selectionArgs != null) {
+            System.arraycopy(selectionArgs, 0, pageArgs, 1, selectionArgs.length);
+        }
+        Uri uri = Phone.CONTENT_URI.buildUpon()
+                .appendQueryParameter(ContactsContract.LIMIT_PARAM_KEY, Integer.toString(PAGE_SIZE))
+                .build();
+
+        int rows = 0;
+        try (Cursor cursor = mResolver.query(uri, PHONE_PROJECTION, pageSelection, pageArgs, Phone._ID)) {
+            while (cursor != null && cursor.moveToNext()) {
+                rows++;
+                lastRowId = cursor.getLong(0);
+                String number = cursor.getString(4);
+                String name = cursor.getString(2);
+                if (number == null || name == null) {
+                    continue;
+                }
+                long contactId = cursor.getLong(1);
+                Contact contact = loaded.get(contactId);
+                if (contact == null) {
+                    contact = new Contact(contactId, name, cursor.getString(3));
+                    loaded.put(contactId, contact);
+                }
+                contact.addNumber(number, cursor.getInt(5), cursor.getInt(6) != 0, cursor.getInt(7) != 0);
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Could not read contacts", e);
+            mLoading = false;
+            mGaveUp = true;
+            return;
+        }
+
+        if (rows == PAGE_SIZE) {
+            final long after = lastRowId;
+            mHandler.post(() -> loadPage(selection, selectionArgs, after, loaded, syncTime, startTime));
+            return;
+        }
+
+        mContacts.putAll(loaded);
+        mSnapshot = new Snapshot(mContacts.values());
+        mSyncedAt = syncTime;
+        mLoading = false;
+        Log.d(TAG, (selection == null ? "Loaded " : "Updated ") + loaded.size() + " contacts in "
+                + (SystemClock.elapsedRealtime() - startTime) + "ms, " + mContacts.size() + " indexed");
+        if (mSyncPending) {
+            mSyncPending = false;
+            sync();
+        }
+    }
+
+    /**
+     * Sound-alike key for a Latin-script word, or null for anything else: the first letter
+     * and up to three consonant class digits, so "jon" and "john" or "kathy" and "cathy"
+     * share a key.
+     */
+    static String soundKey(String word) {
+        if (word.isEmpty() || word.charAt(0) < 'a' || word.charAt(0) > 'z') {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(4);
+        char first = word.charAt(0);
+        if (first == 'c' || first == 'q') {
+            first = 'k';
+        } else if (word.startsWith("ph")) {
+            first = 'f';
+        }
+        key.append(first);
+        char last = soundClass(word.charAt(0));
+        for (int i = 1; i < word.length() && key.length() < 4; i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return null;
+            }
+            char code = soundClass(c);
+            if (code != '0' && code != last) {
+                key.append(code);
+            }
+            // h and w don't separate letters of the same class
+            if (c != 'h' && c != 'w') {
+                last = code;
+            }
+        }
+        return key.toString();
+    }
+
+    private static char soundClass(char c) {
+        switch (c) {
+            case 'b': case 'f': case 'p': case 'v':
+                return '1';
+            case 'c': case 'g': case 'j': case 'k': case 'q': case 's': case 'x': case 'z':
+                return '2';
+            case 'd': case 't':
+                return '3';
+            case 'l':
+                return '4';
+            case 'm': case 'n':
+                return '5';
+            case 'r':
+                return '6';
+            default:
+                return '0';
+        }
+    }
+}
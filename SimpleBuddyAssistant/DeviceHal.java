@@ -0,0 +1,152 @@
+package com.buddy.assistant;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The hardware and system settings that the device handlers act on, one narrow interface
+ * per capability, so the handlers have no Android dependencies of their own.
+ *
+ * The app's implementation is {@code AndroidDeviceHal}; on the host,
+ * {@code SimulatedDeviceHal} keeps the state in memory, with configurable latency and
+ * failures. Reads are expected to be cheap, e.g. served from a cache kept current by
+ * the system, while writes may block on a system service. Failures are thrown as
+ * unchecked exceptions whose message is fit to show to the user.
+ */
+public interface DeviceHal {
+
+    /** Audio streams whose volume can be changed. */
+    enum Stream {
+        MUSIC, RING, ALARM
+    }
+
+    enum RingerMode {
+        SILENT, VIBRATE, NORMAL
+    }
+
+    /** States of a radio that can be switched on and off. */
+    enum RadioState {
+        OFF, TURNING_ON, ON, TURNING_OFF
+    }
+
+    /** System settings that commands change. */
+    enum Setting {
+        /** Manual screen brightness, 0 to 255. */
+        SCREEN_BRIGHTNESS,
+        /** 1 for automatic brightness, 0 for manual. */
+        SCREEN_BRIGHTNESS_MODE,
+        /** 1 if the screen rotates with the device. */
+        ACCELEROMETER_ROTATION
+    }
+
+    /** Screens of the system or of other apps that commands open for the user. */
+    enum Screen {
+        DND_SETTINGS,
+        MOBILE_DATA_SETTINGS,
+        WIRELESS_SETTINGS,
+        AIRPLANE_MODE_SETTINGS,
+        NFC_SETTINGS,
+        LOCATION_SETTINGS,
+        DISPLAY_SETTINGS,
+        BATTERY_SAVER_SETTINGS,
+        WALLPAPER_PICKER,
+        CAMERA_APP,
+        PHOTO_CAPTURE,
+        VIDEO_CAPTURE
+    }
+
+    interface Audio {
+        int getVolume(Stream stream);
+
+        int getMaxVolume(Stream stream);
+
+        void setVolume(Stream stream, int volume);
+
+        RingerMode getRingerMode();
+
+        void setRingerMode(RingerMode mode);
+    }
+
+    interface Torch {
+        /** Whether the device has a camera with a flash unit. */
+        boolean hasFlash();
+
+        boolean isOn();
+
+        /**
+         * Turns the torch steadily on or off, stopping any pattern.
+         *
+         * @return false if the torch was already in that state and nothing was done
+         */
+        boolean setOn(boolean on);
+
+        /** Flashes the torch rapidly until turned off. */
+        void startStrobe();
+
+        /** Flashes SOS in Morse code until turned off. */
+        void startSos();
+    }
+
+    interface Wifi {
+        boolean isAvailable();
+
+        RadioState getState();
+
+        void setEnabled(boolean enabled);
+    }
+
+    interface Bluetooth {
+        boolean isAvailable();
+
+        RadioState getState();
+
+        /** Asks the user to turn Bluetooth on; apps can't do it by themselves. */
+        void requestEnable();
+
+        /** Whether {@link #requestEnable} has to be called on the main thread. */
+        boolean requestEnableNeedsMainThread();
+
+        void disable();
+    }
+
+    interface Settings {
+        int get(Setting setting);
+
+        void put(Setting setting, int value);
+    }
+
+    interface Screens {
+        /** @return false if nothing on the device can show {@code screen} */
+        boolean open(Screen screen);
+
+        /** Finds what shows {@code screen} ahead of {@link #open}, if that takes a lookup. */
+        void prepare(Screen screen);
+
+        void takeScreenshot();
+    }
+
+    Audio audio();
+
+    Torch torch();
+
+    Wifi wifi();
+
+    Bluetooth bluetooth();
+
+    Settings settings();
+
+    Screens screens();
+
+    /**
+     * Returns a future that completes once {@code condition} holds, checked now and after
+     * every change of the state above, or fails with a
+     * {@link java.util.concurrent.TimeoutException} naming {@code what} after
+     * {@code timeoutMs}.
+     */
+    CompletableFuture<Void> await(BooleanSupplier condition, long timeoutMs, String what);
+
+    /** Whether a radio in {@code state} is on or on its way there. */
+    static boolean isOn(RadioState state) {
+        return state == RadioState.ON || state == RadioState.TURNING_ON;
+    }
+}
@@ -0,0 +1,49 @@
+package com.buddy.assistant;
+
+import android.content.Context;
+
+/**
+ * Creates the Android handler for each intent group. Handlers of hardware and settings
+ * act through an {@link AndroidDeviceHal}.
+ */
+public class DeviceHandlerFactory implements CommandHandler.Factory {
+
+    private final Context mContext;
+    // Created with the first hardware handler; create() calls are serialized by the dispatcher
+    private DeviceHal mHal;
+
+    public DeviceHandlerFactory(Context context) {
+        mContext = context;
+    }
+
+    @Override
+    public CommandHandler create(CommandIntent.Group group) {
+        switch (group) {
+            case CONNECTIVITY:
+                return new ConnectivityHandler(getHal());
+            case CAMERA:
+                return new CameraHandler(getHal());
+            case AUDIO:
+                return new AudioHandler(getHal());
+            case CLOCK:
+                return new ClockHandler(mContext);
+            case DISPLAY:
+                return new DisplayHandler(getHal());
+            case COMMUNICATION:
+                return new CommunicationHandler(mContext);
+            case MEDIA:
+                return new MediaHandler(mContext);
+            case APPS:
+                return new AppsHandler(mContext);
+            default:
+                return null;
+        }
+    }
+
+    private DeviceHal getHal() {
+        if (mHal == null) {
+            mHal = new AndroidDeviceHal(mContext);
+        }
+        return mHal;
+    }
+}
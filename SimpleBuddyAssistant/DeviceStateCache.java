@@ -0,0 +1,414 @@
+package com.buddy.assistant;
+
+import android.bluetooth.BluetoothAdapter;
+import android.content.BroadcastReceiver;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.hardware.camera2.CameraManager;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.media.AudioPlaybackConfiguration;
+import android.net.Uri;
+import android.net.wifi.WifiManager;
+import android.os.Handler;
+import android.provider.Settings;
+import android.util.Log;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Current radio, audio and display state, kept up to date by the system instead of asked
+ * for on every command.
+ *
+ * Bluetooth, Wi-Fi and ringer changes come from their broadcasts, brightness, rotation
+ * and airplane mode from {@link ContentObserver}s on {@link Settings.System} and
+ * {@link Settings.Global}, media playback from an {@link AudioManager.AudioPlaybackCallback}
+ * and the torch from a {@link CameraManager.TorchCallback}. Everything is delivered on the
+ * {@link BackgroundThread}, so once the initial state has been read the getters are plain
+ * field reads. A radio that is turning on counts as on, so a second "turn on" right after
+ * the first is a no-op. Ringer and settings changes made by this process are recorded as
+ * soon as they are made, since the next command may run before their broadcast arrives.
+ *
+ * {@link #await} turns a state change into a future, so an action can report success once
+ * the change has actually happened rather than when it was requested.
+ */
+public final class DeviceStateCache {
+    private static final String TAG = "DeviceStateCache";
+
+    /** Called on the background thread after any cached value may have changed. */
+    public interface Listener {
+        void onDeviceStateChanged();
+    }
+
+    private static DeviceStateCache sInstance;
+
+    private final CopyOnWriteArrayList<Listener> mListeners = new CopyOnWriteArrayList<>();
+
+    private final ContentResolver mResolver;
+    private final SystemServices mServices;
+    private final Handler mHandler;
+
+    private volatile boolean mReady;
+    private volatile boolean mHasBluetooth;
+    private volatile int mBluetoothState = BluetoothAdapter.STATE_OFF;
+    private volatile boolean mHasWifi;
+    private volatile int mWifiState = WifiManager.WIFI_STATE_UNKNOWN;
+    private volatile boolean mAirplaneModeOn;
+    private volatile boolean mTorchOn;
+    // Flash units that are lit; only touched on the background thread
+    private final Set<String> mTorchCameras = new HashSet<>();
+    private volatile int mRingerMode;
+    private volatile boolean mMediaPlaying;
+    private volatile int mBrightness;
+    private volatile boolean mAutoBrightness;
+    private volatile boolean mAutoRotate;
+
+    /** Every cached value at one moment, for diagnostics. */
+    public static final class Snapshot {
+        public final boolean bluetoothOn;
+        public final boolean wifiOn;
+        public final boolean airplaneModeOn;
+        public final boolean torchOn;
+        public final int ringerMode;
+        public final boolean mediaPlaying;
+        public final int brightness;
+        public final boolean autoBrightness;
+        public final boolean autoRotate;
+
+        Snapshot(DeviceStateCache cache) {
+            bluetoothOn = cache.bluetoothStateIsOn();
+            wifiOn = cache.wifiStateIsOn();
+            airplaneModeOn = cache.mAirplaneModeOn;
+            torchOn = cache.mTorchOn;
+            ringerMode = cache.mRingerMode;
+            mediaPlaying = cache.mMediaPlaying;
+            brightness = cache.mBrightness;
+            autoBrightness = cache.mAutoBrightness;
+            autoRotate = cache.mAutoRotate;
+        }
+
+        @Override
+        public String toString() {
+            return "bluetooth=" + onOff(bluetoothOn) + " wifi=" + onOff(wifiOn)
+                    + " airplane=" + onOff(airplaneModeOn) + " torch=" + onOff(torchOn)
+                    + " ringer=" + ringerModeName(ringerMode) + " media=" + (mediaPlaying ? "playing" : "idle")
+                    + " brightness=" + (autoBrightness ? "auto" : Integer.toString(brightness))
+                    + " rotation=" + (autoRotate ? "auto" : "locked");
+        }
+
+        private static String onOff(boolean on) {
+            return on ? "on" : "off";
+        }
+
+        private static String ringerModeName(int mode) {
+            switch (mode) {
+                case AudioManager.RINGER_MODE_SILENT:
+                    return "silent";
+                case AudioManager.RINGER_MODE_VIBRATE:
+                    return "vibrate";
+                default:
+                    return "normal";
+            }
+        }
+    }
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (BluetoothAdapter.ACTION_STATE_CHANGED.equals(action)) {
+                mBluetoothState = intent.getIntExtra(BluetoothAdapter.EXTRA_STATE, mBluetoothState);
+            } else if (WifiManager.WIFI_STATE_CHANGED_ACTION.equals(action)) {
+                mWifiState = intent.getIntExtra(WifiManager.EXTRA_WIFI_STATE, mWifiState);
+            } else if (AudioManager.RINGER_MODE_CHANGED_ACTION.equals(action)) {
+                // Not the extra: the broadcast of an earlier change may arrive after onRingerModeSet
+                mRingerMode = mServices.getAudioManager().getRingerMode();
+            }
+            notifyListeners();
+        }
+    };
+
+    private final ContentObserver mSettingsObserver;
+
+    private final AudioManager.AudioPlaybackCallback mPlaybackCallback = new AudioManager.AudioPlaybackCallback() {
+        @Override
+        public void onPlaybackConfigChanged(List<AudioPlaybackConfiguration> configs) {
+            mMediaPlaying = isMediaPlaying(configs);
+            notifyListeners();
+        }
+    };
+
+    // Called once per flash unit on registration, then on every change
+    private final CameraManager.TorchCallback mTorchCallback = new CameraManager.TorchCallback() {
+        @Override
+        public void onTorchModeChanged(String cameraId, boolean enabled) {
+            if (enabled) {
+                mTorchCameras.add(cameraId);
+            } else {
+                mTorchCameras.remove(cameraId);
+            }
+            mTorchOn = !mTorchCameras.isEmpty();
+            notifyListeners();
+        }
+
+        @Override
+        public void onTorchModeUnavailable(String cameraId) {
+            onTorchModeChanged(cameraId, false);
+        }
+    };
+
+    private DeviceStateCache(Context context) {
+        mResolver = context.getContentResolver();
+        mServices = SystemServices.get(context);
+        mHandler = BackgroundThread.getHandler();
+        mSettingsObserver = new ContentObserver(mHandler) {
+            @Override
+            public void onChange(boolean selfChange, Uri uri) {
+                readSettings();
+                notifyListeners();
+            }
+        };
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(BluetoothAdapter.ACTION_STATE_CHANGED);
+        filter.addAction(WifiManager.WIFI_STATE_CHANGED_ACTION);
+        filter.addAction(AudioManager.RINGER_MODE_CHANGED_ACTION);
+        context.registerReceiver(mReceiver, filter, null, mHandler);
+        for (Uri uri : new Uri[] {
+                Settings.System.getUriFor(Settings.System.SCREEN_BRIGHTNESS),
+                Settings.System.getUriFor(Settings.System.SCREEN_BRIGHTNESS_MODE),
+                Settings.System.getUriFor(Settings.System.ACCELEROMETER_ROTATION),
+                Settings.Global.getUriFor(Settings.Global.AIRPLANE_MODE_ON)}) {
+            mResolver.registerContentObserver(uri, false, mSettingsObserver);
+        }
+        AudioManager audioManager = mServices.getAudioManager();
+        if (audioManager != null) {
+            audioManager.registerAudioPlaybackCallback(mPlaybackCallback, mHandler);
+        }
+        CameraManager cameraManager = mServices.getCameraManager();
+        if (cameraManager != null) {
+            cameraManager.registerTorchCallback(mTorchCallback, mHandler);
+        }
+        // The initial reads are binder calls; keep them off the caller's thread
+        mHandler.post(this::ensureReady);
+    }
+
+    /** Returns the process-wide cache, registering its listeners if needed. */
+    public static synchronized DeviceStateCache get(Context context) {
+        if (sInstance == null) {
+            sInstance = new DeviceStateCache(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    public boolean hasBluetooth() {
+        ensureReady();
+        return mHasBluetooth;
+    }
+
+    /** Whether Bluetooth is on or turning on. */
+    public boolean isBluetoothOn() {
+        ensureReady();
+        return bluetoothStateIsOn();
+    }
+
+    /** One of the {@code BluetoothAdapter.STATE_*} values. */
+    public int getBluetoothState() {
+        ensureReady();
+        return mBluetoothState;
+    }
+
+    public boolean hasWifi() {
+        ensureReady();
+        return mHasWifi;
+    }
+
+    /** Whether Wi-Fi is on or turning on. */
+    public boolean isWifiOn() {
+        ensureReady();
+        return wifiStateIsOn();
+    }
+
+    /** One of the {@code WifiManager.WIFI_STATE_*} values. */
+    public int getWifiState() {
+        ensureReady();
+        return mWifiState;
+    }
+
+    public boolean isAirplaneModeOn() {
+        ensureReady();
+        return mAirplaneModeOn;
+    }
+
+    /** One of the {@code AudioManager.RINGER_MODE_*} values. */
+    public int getRingerMode() {
+        ensureReady();
+        return mRingerMode;
+    }
+
+    public boolean isMediaPlaying() {
+        ensureReady();
+        return mMediaPlaying;
+    }
+
+    /** Manual screen brightness, 0 to 255. */
+    public int getBrightness() {
+        ensureReady();
+        return mBrightness;
+    }
+
+    public boolean isAutoBrightness() {
+        ensureReady();
+        return mAutoBrightness;
+    }
+
+    public boolean isAutoRotate() {
+        ensureReady();
+        return mAutoRotate;
+    }
+
+    public Snapshot snapshot() {
+        ensureReady();
+        return new Snapshot(this);
+    }
+
+    public boolean isTorchOn() {
+        ensureReady();
+        return mTorchOn;
+    }
+
+    /**
+     * Records a ringer mode this process has just set. {@code AudioManager.setRingerMode}
+     * has made the change when it returns, but the broadcast comes later.
+     */
+    public void onRingerModeSet(int mode) {
+        mRingerMode = mode;
+        mHandler.post(this::notifyListeners);
+    }
+
+    /** Records a {@link Settings.System} value this process has just put, before its observer hears of it. */
+    public void onSystemSettingPut(String name, int value) {
+        if (Settings.System.SCREEN_BRIGHTNESS.equals(name)) {
+            mBrightness = value;
+        } else if (Settings.System.SCREEN_BRIGHTNESS_MODE.equals(name)) {
+            mAutoBrightness = value == Settings.System.SCREEN_BRIGHTNESS_MODE_AUTOMATIC;
+        } else if (Settings.System.ACCELEROMETER_ROTATION.equals(name)) {
+            mAutoRotate = value != 0;
+        } else {
+            return;
+        }
+        mHandler.post(this::notifyListeners);
+    }
+
+    public void addListener(Listener listener) {
+        mListeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Returns a future that completes once {@code condition} holds, checked now and after
+     * every state change, or fails with a {@link TimeoutException} naming {@code what}
+     * after {@code timeoutMs}.
+     */
+    public CompletableFuture<Void> await(BooleanSupplier condition, long timeoutMs, String what) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        // Checking and subscribing on the delivery thread means no change can slip in between
+        mHandler.post(() -> {
+            ensureReady();
+            if (condition.getAsBoolean()) {
+                future.complete(null);
+                return;
+            }
+            Listener listener = () -> {
+                if (condition.getAsBoolean()) {
+                    future.complete(null);
+                }
+            };
+            Runnable timeout = () -> future.completeExceptionally(
+                    new TimeoutException(what + " within " + timeoutMs + " ms"));
+            addListener(listener);
+            mHandler.postDelayed(timeout, timeoutMs);
+            future.whenComplete((result, error) -> {
+                removeListener(listener);
+                mHandler.removeCallbacks(timeout);
+            });
+        });
+        return future;
+    }
+
+    private void notifyListeners() {
+        for (Listener listener : mListeners) {
+            listener.onDeviceStateChanged();
+        }
+    }
+
+    private void ensureReady() {
+        if (!mReady) {
+            readInitialState();
+        }
+    }
+
+    // Reads everything once; listeners keep it current from then on
+    private synchronized void readInitialState() {
+        if (mReady) {
+            return;
+        }
+        BluetoothAdapter bluetoothAdapter = mServices.getBluetoothAdapter();
+        mHasBluetooth = bluetoothAdapter != null;
+        if (bluetoothAdapter != null) {
+            mBluetoothState = bluetoothAdapter.getState();
+        }
+        WifiManager wifiManager = mServices.getWifiManager();
+        mHasWifi = wifiManager != null;
+        if (wifiManager != null) {
+            mWifiState = wifiManager.getWifiState();
+        }
+        AudioManager audioManager = mServices.getAudioManager();
+        if (audioManager != null) {
+            mRingerMode = audioManager.getRingerMode();
+            mMediaPlaying = isMediaPlaying(audioManager.getActivePlaybackConfigurations());
+        }
+        readSettings();
+        mReady = true;
+        Log.d(TAG, "Initial state: " + new Snapshot(this));
+    }
+
+    private boolean bluetoothStateIsOn() {
+        int state = mBluetoothState;
+        return state == BluetoothAdapter.STATE_ON || state == BluetoothAdapter.STATE_TURNING_ON;
+    }
+
+    private boolean wifiStateIsOn() {
+        int state = mWifiState;
+        return state == WifiManager.WIFI_STATE_ENABLED || state == WifiManager.WIFI_STATE_ENABLING;
+    }
+
+    private void readSettings() {
+        mBrightness = Settings.System.getInt(mResolver, Settings.System.SCREEN_BRIGHTNESS, 128);
+        mAutoBrightness = Settings.System.getInt(mResolver, Settings.System.SCREEN_BRIGHTNESS_MODE,
+                Settings.System.SCREEN_BRIGHTNESS_MODE_MANUAL) == Settings.System.SCREEN_BRIGHTNESS_MODE_AUTOMATIC;
+        mAutoRotate = Settings.System.getInt(mResolver, Settings.System.ACCELEROMETER_ROTATION, 0) != 0;
+        mAirplaneModeOn = Settings.Global.getInt(mResolver, Settings.Global.AIRPLANE_MODE_ON, 0) != 0;
+    }
+
+    private static boolean isMediaPlaying(List<AudioPlaybackConfiguration> configs) {
+        for (AudioPlaybackConfiguration config : configs) {
+            AudioAttributes attributes = config.getAudioAttributes();
+            if (attributes != null && attributes.getUsage() == AudioAttributes.USAGE_MEDIA) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,179 @@
+package com.buddy.assistant;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handles theme, brightness, wallpaper, rotation and battery saver.
+ */
+class DisplayHandler extends HalCommandHandler {
+
+    private static final long SETTING_TIMEOUT_MS = 2000;
+
+    DisplayHandler(DeviceHal hal) {
+        super(hal);
+    }
+
+    @Override
+    public String handle(CommandIntent intent, Map<String, String> params) {
+        switch (intent) {
+            case THEME_DARK:
+                return setDarkTheme();
+            case THEME_LIGHT:
+                return setLightTheme();
+            case BRIGHTNESS_UP:
+                return increaseBrightness();
+            case BRIGHTNESS_DOWN:
+                return decreaseBrightness();
+            case BRIGHTNESS_AUTO:
+                return setAutoBrightness();
+            case CHANGE_WALLPAPER:
+                return changeWallpaper();
+            case AUTO_ROTATE_ON:
+                return enableAutoRotate();
+            case AUTO_ROTATE_OFF:
+                return disableAutoRotate();
+            case BATTERY_SAVER_ON:
+                return enableBatterySaver();
+            case BATTERY_SAVER_OFF:
+                return disableBatterySaver();
+            default:
+                return "❌ AI Command not implemented: " + intent;
+        }
+    }
+    
+    @Override
+    public CompletableFuture<String> handleAsync(CommandIntent intent, Map<String, String> params) {
+        DeviceHal.Settings settings = mHal.settings();
+        String response;
+        switch (intent) {
+            case BRIGHTNESS_UP:
+                response = handle(intent, params);
+                return whenState(response, response, () -> settings.get(DeviceHal.Setting.SCREEN_BRIGHTNESS) == 255,
+                        SETTING_TIMEOUT_MS, "Brightness did not change");
+            case BRIGHTNESS_DOWN:
+                response = handle(intent, params);
+                return whenState(response, response, () -> settings.get(DeviceHal.Setting.SCREEN_BRIGHTNESS) <= 50,
+                        SETTING_TIMEOUT_MS, "Brightness did not change");
+            case AUTO_ROTATE_ON:
+                response = handle(intent, params);
+                return whenState(response, response, () -> settings.get(DeviceHal.Setting.ACCELEROMETER_ROTATION) != 0,
+                        SETTING_TIMEOUT_MS, "Auto rotate was not enabled");
+            case AUTO_ROTATE_OFF:
+                response = handle(intent, params);
+                return whenState(response, response, () -> settings.get(DeviceHal.Setting.ACCELEROMETER_ROTATION) == 0,
+                        SETTING_TIMEOUT_MS, "Auto rotate was not disabled");
+            default:
+                return super.handleAsync(intent, params);
+        }
+    }
+    
+    private String setDarkTheme() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.DISPLAY_SETTINGS);
+            return "✅ Opening display settings for dark theme";
+        } catch (Exception e) {
+            return "❌ Could not access theme settings: " + e.getMessage();
+        }
+    }
+    
+    private String setLightTheme() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.DISPLAY_SETTINGS);
+            return "✅ Opening display settings for light theme";
+        } catch (Exception e) {
+            return "❌ Could not access theme settings: " + e.getMessage();
+        }
+    }
+    
+    // Device Personalization
+    private String increaseBrightness() {
+        try {
+            DeviceHal.Settings settings = mHal.settings();
+            if (settings.get(DeviceHal.Setting.SCREEN_BRIGHTNESS_MODE) == 0
+                    && settings.get(DeviceHal.Setting.SCREEN_BRIGHTNESS) == 255) {
+                return "✅ Brightness is already at maximum";
+            }
+            settings.put(DeviceHal.Setting.SCREEN_BRIGHTNESS, 255);
+            return "✅ Brightness increased to maximum";
+        } catch (Exception e) {
+            return "❌ Could not increase brightness: " + e.getMessage();
+        }
+    }
+    
+    private String decreaseBrightness() {
+        try {
+            DeviceHal.Settings settings = mHal.settings();
+            if (settings.get(DeviceHal.Setting.SCREEN_BRIGHTNESS_MODE) == 0
+                    && settings.get(DeviceHal.Setting.SCREEN_BRIGHTNESS) <= 50) {
+                return "✅ Brightness is already low";
+            }
+            settings.put(DeviceHal.Setting.SCREEN_BRIGHTNESS, 50);
+            return "✅ Brightness decreased";
+        } catch (Exception e) {
+            return "❌ Could not decrease brightness: " + e.getMessage();
+        }
+    }
+    
+    private String setAutoBrightness() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.DISPLAY_SETTINGS);
+            return "✅ Opening display settings for auto brightness";
+        } catch (Exception e) {
+            return "❌ Could not access brightness settings: " + e.getMessage();
+        }
+    }
+    
+    private String changeWallpaper() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.WALLPAPER_PICKER);
+            return "✅ Opening wallpaper selection";
+        } catch (Exception e) {
+            return "❌ Could not change wallpaper: " + e.getMessage();
+        }
+    }
+    
+    private String enableAutoRotate() {
+        try {
+            DeviceHal.Settings settings = mHal.settings();
+            if (settings.get(DeviceHal.Setting.ACCELEROMETER_ROTATION) != 0) {
+                return "✅ Auto rotate is already enabled";
+            }
+            settings.put(DeviceHal.Setting.ACCELEROMETER_ROTATION, 1);
+            return "✅ Auto rotate enabled";
+        } catch (Exception e) {
+            return "❌ Could not enable auto rotate: " + e.getMessage();
+        }
+    }
+    
+    private String disableAutoRotate() {
+        try {
+            DeviceHal.Settings settings = mHal.settings();
+            if (settings.get(DeviceHal.Setting.ACCELEROMETER_ROTATION) == 0) {
+                return "✅ Auto rotate is already disabled";
+            }
+            settings.put(DeviceHal.Setting.ACCELEROMETER_ROTATION, 0);
+            return "✅ Auto rotate disabled";
+        } catch (Exception e) {
+            return "❌ Could not disable auto rotate: " + e.getMessage();
+        }
+    }
+    
+    private String enableBatterySaver() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.BATTERY_SAVER_SETTINGS);
+            return "✅ Opening battery saver settings";
+        } catch (Exception e) {
+            return "❌ Could not access battery saver: " + e.getMessage();
+        }
+    }
+    
+    private String disableBatterySaver() {
+        try {
+            mHal.screens().open(DeviceHal.Screen.BATTERY_SAVER_SETTINGS);
+            return "✅ Opening battery saver settings";
+        } catch (Exception e) {
+            return "❌ Could not access battery saver: " + e.getMessage();
+        }
+    }
+}
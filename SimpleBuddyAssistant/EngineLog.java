@@ -0,0 +1,28 @@
+package com.buddy.assistant;
+
+/**
+ * Logging for the command engine. The engine also builds for the host, where
+ * {@code android.util.Log} doesn't exist, so the host variant of the library compiles
+ * {@code host/EngineLog.java} instead of this file.
+ */
+final class EngineLog {
+
+    private EngineLog() {
+    }
+
+    static void d(String tag, String msg) {
+        android.util.Log.d(tag, msg);
+    }
+
+    static void i(String tag, String msg) {
+        android.util.Log.i(tag, msg);
+    }
+
+    static void w(String tag, String msg) {
+        android.util.Log.w(tag, msg);
+    }
+
+    static void e(String tag, String msg, Throwable tr) {
+        android.util.Log.e(tag, msg, tr);
+    }
+}
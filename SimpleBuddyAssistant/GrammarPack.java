@@ -0,0 +1,102 @@
+package com.buddy.assistant;
+
+import java.text.Normalizer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Matching index for one language: every phrase of every intent, normalized and split
+ * into words, in flat arrays that the classifier walks in order.
+ *
+ * Packs are built by {@link GrammarPacks} the first time an utterance arrives in their
+ * language and are immutable afterwards.
+ */
+public final class GrammarPack {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}\\s]");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final Locale mLocale;
+    private final String[][] mSlotTriggers = new String[Slot.values().length][];
+
+    // Parallel arrays, one entry per phrase, grouped by intent
+    final CommandIntent[] intents;
+    final String[] phrases;
+    final String[][] words;
+
+    // Per intent ordinal: the intent's phrases are [intentStart, intentEnd), and the
+    // shortest of them has intentMinWords words
+    final int[] intentStart = new int[CommandIntent.COUNT];
+    final int[] intentEnd = new int[CommandIntent.COUNT];
+    final int[] intentMinWords = new int[CommandIntent.COUNT];
+
+    GrammarPack(Locale locale, Map<CommandIntent, String[]> grammar, Map<Slot, String[]> triggers) {
+        mLocale = locale;
+
+        int count = 0;
+        for (String[] intentPhrases : grammar.values()) {
+            count += intentPhrases.length;
+        }
+        intents = new CommandIntent[count];
+        phrases = new String[count];
+        words = new String[count][];
+
+        int i = 0;
+        for (CommandIntent intent : CommandIntent.VALUES) {
+            int ordinal = intent.ordinal();
+            intentStart[ordinal] = i;
+            intentMinWords[ordinal] = Integer.MAX_VALUE;
+            String[] intentPhrases = grammar.get(intent);
+            if (intentPhrases != null) {
+                for (String phrase : intentPhrases) {
+                    intents[i] = intent;
+                    phrases[i] = phrase;
+                    words[i] = SPACES.split(normalize(phrase));
+                    intentMinWords[ordinal] = Math.min(intentMinWords[ordinal], words[i].length);
+                    i++;
+                }
+            }
+            intentEnd[ordinal] = i;
+        }
+
+        for (Slot slot : Slot.values()) {
+            String[] slotTriggers = triggers.get(slot);
+            mSlotTriggers[slot.ordinal()] = slotTriggers != null ? slotTriggers : slot.getDefaultTriggers();
+        }
+    }
+
+    /** The English pack, built from the phrases declared on {@link CommandIntent}. */
+    static GrammarPack english() {
+        Map<CommandIntent, String[]> grammar = new EnumMap<>(CommandIntent.class);
+        for (CommandIntent intent : CommandIntent.VALUES) {
+            grammar.put(intent, intent.getPatterns().toArray(new String[0]));
+        }
+        return new GrammarPack(Locale.ENGLISH, grammar, new EnumMap<Slot, String[]>(Slot.class));
+    }
+
+    public String getLanguage() {
+        return mLocale.getLanguage();
+    }
+
+    public int size() {
+        return phrases.length;
+    }
+
+    String[] getTriggers(Slot slot) {
+        return mSlotTriggers[slot.ordinal()];
+    }
+
+    /**
+     * Lower-cases the input, folds accents and drops punctuation so that "Añade" and
+     * "anade" or "what's" and "whats" compare equal.
+     */
+    String normalize(String input) {
+        String folded = Normalizer.normalize(input.toLowerCase(mLocale), Normalizer.Form.NFD);
+        folded = MARKS.matcher(folded).replaceAll("");
+        folded = NON_WORD.matcher(folded).replaceAll("");
+        return SPACES.matcher(folded).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,65 @@
+package com.buddy.assistant;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Loads grammar packs on demand and keeps the most recently used ones.
+ *
+ * A pack is only built when an utterance first arrives in its language, so a device
+ * that only speaks one language only ever holds that language's index. Languages
+ * without a pack fall back to English.
+ */
+public final class GrammarPacks {
+    private static final String TAG = "GrammarPacks";
+
+    // One pack for the device language plus one for an occasional second language
+    static final int MAX_CACHED_PACKS = 2;
+
+    private static final String DEFAULT_LANGUAGE = "en";
+
+    private static final Map<String, GrammarPack> sPacks =
+            new LinkedHashMap<String, GrammarPack>(MAX_CACHED_PACKS + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, GrammarPack> eldest) {
+                    return size() > MAX_CACHED_PACKS;
+                }
+            };
+
+    private GrammarPacks() {
+    }
+
+    public static GrammarPack forLocale(Locale locale) {
+        String language = resolveLanguage(locale);
+        synchronized (sPacks) {
+            GrammarPack pack = sPacks.get(language);
+            if (pack == null) {
+                long start = System.nanoTime();
+                pack = load(language);
+                sPacks.put(language, pack);
+                EngineLog.d(TAG, "Loaded " + language + " grammar (" + pack.size() + " phrases) in "
+                        + (System.nanoTime() - start) / 1000 + "us");
+            }
+            return pack;
+        }
+    }
+
+    private static String resolveLanguage(Locale locale) {
+        switch (locale.getLanguage()) {
+            case "es":
+                return "es";
+            default:
+                return DEFAULT_LANGUAGE;
+        }
+    }
+
+    private static GrammarPack load(String language) {
+        switch (language) {
+            case "es":
+                return SpanishGrammar.create();
+            default:
+                return GrammarPack.english();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.buddy.assistant;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Common plumbing for handlers that act on the device through a {@link DeviceHal}, so
+ * they run against the simulator on the host as well as on a device.
+ */
+abstract class HalCommandHandler implements CommandHandler {
+
+    protected final DeviceHal mHal;
+
+    protected HalCommandHandler(DeviceHal hal) {
+        mHal = hal;
+    }
+
+    /**
+     * Completes with {@code confirmed} and the time taken once {@code reached} holds, or
+     * fails after {@code timeoutMs}. A failed response, or one for a state that already
+     * holds, completes at once as it is.
+     */
+    protected CompletableFuture<String> whenState(String response, String confirmed,
+            BooleanSupplier reached, long timeoutMs, String what) {
+        if (response.startsWith("❌") || reached.getAsBoolean()) {
+            return CompletableFuture.completedFuture(response);
+        }
+        long start = System.nanoTime();
+        return mHal.await(reached, timeoutMs, what).thenApply(ignored ->
+                confirmed + " (" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)");
+    }
+}
@@ -0,0 +1,171 @@
+package com.buddy.assistant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Classifies a transcript while it is still being recognized.
+ *
+ * Feed every partial transcript to {@link #update}. A word's contribution to each
+ * phrase's score doesn't depend on the other words, so the per-phrase match counts for
+ * the words shared with the previous partial are kept and only the changed tail is
+ * rescored.
+ *
+ * Once the same intent has led with high confidence for several partials in a row, each
+ * adding words, it is reported as stable so the caller can act on it before the final
+ * result arrives. Recognizers often repeat a partial unchanged, which doesn't count.
+ * Intents that take parameters are never reported early: the time or message may still be
+ * coming. Nor is an intent whose words so far begin a longer phrase of another intent,
+ * like "turn on wifi" before "hotspot". The final transcript should still go through {@link AICommandProcessor}; use
+ * {@link #getStableIntent()} to avoid running the same command twice.
+ *
+ * Not thread safe; recognizer callbacks all arrive on one thread.
+ */
+public final class IncrementalClassifier {
+    private static final String TAG = "IncrementalClassifier";
+
+    // Leading score an intent needs before it can be reported early
+    private static final float STABLE_CONFIDENCE = 0.8f;
+    // Consecutive partials that add words it must lead for, counting the first
+    private static final int STABLE_PARTIALS = 2;
+
+    private final GrammarPack mPack;
+
+    // Words of the last partial, and for each one which phrases it matched
+    private final ArrayList<String> mWords = new ArrayList<>();
+    private final ArrayList<boolean[]> mWordMatches = new ArrayList<>();
+    // Per phrase: how many of mWords match it
+    private final int[] mMatchCounts;
+
+    private CommandIntent mLeader;
+    private int mLeaderStreak;
+    private CommandIntent mStableIntent;
+
+    public IncrementalClassifier(Locale locale) {
+        mPack = GrammarPacks.forLocale(locale);
+        mMatchCounts = new int[mPack.size()];
+    }
+
+    /** Forgets the current utterance, ready for the next one. */
+    public void reset() {
+        mWords.clear();
+        mWordMatches.clear();
+        Arrays.fill(mMatchCounts, 0);
+        mLeader = null;
+        mLeaderStreak = 0;
+        mStableIntent = null;
+    }
+
+    /** The intent already reported as stable for this utterance, or null. */
+    public CommandIntent getStableIntent() {
+        return mStableIntent;
+    }
+
+    /**
+     * Scores the latest partial transcript.
+     *
+     * @return the result the first time an intent becomes stable, otherwise null
+     */
+    public AICommandProcessor.CommandResult update(String partial) {
+        if (partial.length() > AICommandProcessor.MAX_INPUT_CHARS) {
+            partial = partial.substring(0, AICommandProcessor.MAX_INPUT_CHARS);
+        }
+        String normalized = mPack.normalize(partial);
+        // Same bounded view of the words as the final classification uses
+        String[] words = normalized.isEmpty()
+                ? new String[0] : AICommandProcessor.classificationWords(normalized.split(" "));
+
+        int previous = mWords.size();
+        int shared = 0;
+        while (shared < words.length && shared < mWords.size() && words[shared].equals(mWords.get(shared))) {
+            shared++;
+        }
+        truncate(shared);
+        for (int w = shared; w < words.length; w++) {
+            append(words[w]);
+        }
+
+        if (mStableIntent != null || words.length == 0) {
+            return null;
+        }
+        if (words.length == shared) {
+            // A repeated partial is no new evidence; one that took words back starts over
+            if (shared < previous) {
+                mLeader = null;
+                mLeaderStreak = 0;
+            }
+            return null;
+        }
+
+        CommandIntent bestIntent = null;
+        int bestPhrase = -1;
+        float bestConfidence = 0.0f;
+        for (int ordinal : AICommandProcessor.getPriors().order) {
+            for (int i = mPack.intentStart[ordinal]; i < mPack.intentEnd[ordinal]; i++) {
+                float similarity = (float) mMatchCounts[i] / Math.max(words.length, mPack.words[i].length);
+                if (similarity > bestConfidence) {
+                    bestConfidence = similarity;
+                    bestIntent = mPack.intents[i];
+                    bestPhrase = i;
+                }
+            }
+        }
+
+        if (bestIntent == null || bestConfidence < STABLE_CONFIDENCE) {
+            mLeader = null;
+            mLeaderStreak = 0;
+            return null;
+        }
+        if (bestIntent == mLeader) {
+            mLeaderStreak++;
+        } else {
+            mLeader = bestIntent;
+            mLeaderStreak = 1;
+        }
+        EngineLog.d(TAG, "Partial \"" + normalized + "\" leads with " + bestIntent + " " + bestConfidence + " x" + mLeaderStreak);
+
+        if (mLeaderStreak < STABLE_PARTIALS || !bestIntent.getSlots().isEmpty()
+                || mayContinue(bestIntent, mMatchCounts[bestPhrase])) {
+            return null;
+        }
+        mStableIntent = bestIntent;
+        EngineLog.d(TAG, "Stable intent " + bestIntent + " after " + words.length + " words");
+        return new AICommandProcessor.CommandResult(bestIntent, new HashMap<>(), bestConfidence);
+    }
+
+    // Whether a phrase of another intent matches all the words the leader's phrase does and has more to come
+    private boolean mayContinue(CommandIntent leader, int matched) {
+        for (int i = 0; i < mMatchCounts.length; i++) {
+            if (mPack.intents[i] != leader && mMatchCounts[i] >= matched && mPack.words[i].length > mMatchCounts[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void append(String word) {
+        boolean[] matches = new boolean[mMatchCounts.length];
+        for (int i = 0; i < matches.length; i++) {
+            if (AICommandProcessor.matchesAny(word, mPack.words[i])) {
+                matches[i] = true;
+                mMatchCounts[i]++;
+            }
+        }
+        mWords.add(word);
+        mWordMatches.add(matches);
+    }
+
+    private void truncate(int length) {
+        for (int w = mWords.size() - 1; w >= length; w--) {
+            boolean[] matches = mWordMatches.remove(w);
+            for (int i = 0; i < matches.length; i++) {
+                if (matches[i]) {
+                    mMatchCounts[i]--;
+                }
+            }
+            mWords.remove(w);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.buddy.assistant;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Routes classified commands to their handlers through a table indexed by
+ * {@link CommandIntent#ordinal()}. Table slots are filled lazily on first dispatch, or on
+ * {@link #prepare} from another thread, so a slot is published safely and each group gets
+ * exactly one handler.
+ */
+public class IntentDispatcher {
+
+    private final CommandHandler.Factory mFactory;
+    private final AtomicReferenceArray<CommandHandler> mHandlers = new AtomicReferenceArray<>(CommandIntent.COUNT);
+    // Guarded by itself
+    private final CommandHandler[] mGroupHandlers = new CommandHandler[CommandIntent.Group.values().length];
+
+    public IntentDispatcher(CommandHandler.Factory factory) {
+        mFactory = factory;
+    }
+
+    public String dispatch(AICommandProcessor.CommandResult result) {
+        CommandIntent intent = result.intent;
+        CommandHandler handler = getHandler(intent);
+        if (handler == null) {
+            return "❌ AI Command not implemented: " + intent;
+        }
+
+        try {
+            return handler.handle(intent, result.parameters);
+        } catch (Exception e) {
+            return "❌ Error executing AI command: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Like {@link #dispatch}, but completes once the action has taken effect. A handler
+     * failure or timeout completes it with the error text rather than exceptionally.
+     */
+    public CompletableFuture<String> dispatchAsync(AICommandProcessor.CommandResult result) {
+        CommandIntent intent = result.intent;
+        CommandHandler handler = getHandler(intent);
+        if (handler == null) {
+            return CompletableFuture.completedFuture("❌ AI Command not implemented: " + intent);
+        }
+
+        CompletableFuture<String> future;
+        try {
+            future = handler.handleAsync(intent, result.parameters);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture("❌ Error executing AI command: " + e.getMessage());
+        }
+        return future.exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            return "❌ " + cause.getMessage();
+        });
+    }
+
+    /** Whether the handler for {@code intent} must be called on the main thread. */
+    public boolean needsMainThread(CommandIntent intent) {
+        CommandHandler handler = getHandler(intent);
+        return handler != null && handler.needsMainThread(intent);
+    }
+
+    /**
+     * Creates the handler for {@code intent} if needed and has it {@link CommandHandler#prepare
+     * prepare}, ahead of a command that is likely to be {@code intent}.
+     */
+    public void prepare(CommandIntent intent) {
+        CommandHandler handler = getHandler(intent);
+        if (handler != null) {
+            handler.prepare(intent);
+        }
+    }
+
+    private CommandHandler getHandler(CommandIntent intent) {
+        CommandHandler handler = mHandlers.get(intent.ordinal());
+        if (handler != null) {
+            return handler;
+        }
+
+        CommandIntent.Group group = intent.getGroup();
+        if (group == null) {
+            return null;
+        }
+
+        synchronized (mGroupHandlers) {
+            handler = mGroupHandlers[group.ordinal()];
+            if (handler == null) {
+                handler = mFactory.create(group);
+                mGroupHandlers[group.ordinal()] = handler;
+            }
+            mHandlers.set(intent.ordinal(), handler);
+        }
+        return handler;
+    }
+}
@@ -0,0 +1,200 @@
+package com.buddy.assistant;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-household usage of each intent, as exponentially decayed counts.
+ *
+ * The classifier reads the current {@link Snapshot} to evaluate likely intents first
+ * and to break score ties. Updates, loading and saving all happen on a private worker
+ * thread; readers only ever see immutable snapshots.
+ *
+ * Counts are saved by intent name rather than ordinal, so adding or reordering intents
+ * keeps the history of the others.
+ */
+public final class IntentPriors {
+    private static final String TAG = "IntentPriors";
+
+    static final String FILE_NAME = "intent_priors.bin";
+
+    private static final int MAGIC = 0x42505231; // "BPR1"
+    // Usage from two weeks ago counts half as much as usage today
+    private static final long HALF_LIFE_MS = TimeUnit.DAYS.toMillis(14);
+    // Coalesce bursts of commands into one write
+    private static final long SAVE_DELAY_MS = 5000;
+
+    private static IntentPriors sInstance;
+
+    private final File mFile;
+    private final ScheduledExecutorService mWorker;
+
+    // Owned by the worker thread
+    private final float[] mCounts = new float[CommandIntent.COUNT];
+    private long mDecayedAtMillis;
+    private boolean mSaveScheduled;
+
+    private volatile Snapshot mSnapshot = Snapshot.EMPTY;
+
+    /** Immutable view of the priors at one point in time. */
+    public static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new float[CommandIntent.COUNT]);
+
+        private final float[] mWeights;
+        // Intent ordinals, most used first; ties keep declaration order
+        final int[] order;
+
+        Snapshot(float[] counts) {
+            mWeights = counts.clone();
+            Integer[] boxed = new Integer[counts.length];
+            for (int i = 0; i < boxed.length; i++) {
+                boxed[i] = i;
+            }
+            Arrays.sort(boxed, (a, b) -> Float.compare(mWeights[b], mWeights[a]));
+            order = new int[boxed.length];
+            for (int i = 0; i < boxed.length; i++) {
+                order[i] = boxed[i];
+            }
+        }
+
+        public float getWeight(CommandIntent intent) {
+            return mWeights[intent.ordinal()];
+        }
+
+        /** Up to {@code count} of the intents used so far, most used first. */
+        public List<CommandIntent> getMostUsed(int count) {
+            List<CommandIntent> mostUsed = new ArrayList<>(count);
+            for (int i = 0; i < order.length && mostUsed.size() < count && mWeights[order[i]] > 0; i++) {
+                mostUsed.add(CommandIntent.VALUES[order[i]]);
+            }
+            return mostUsed;
+        }
+    }
+
+    private IntentPriors(File file) {
+        mFile = file;
+        mWorker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "IntentPriors");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        });
+        mWorker.execute(this::load);
+    }
+
+    /** Returns the process-wide priors stored in {@code dir}, loading them in the background. */
+    public static synchronized IntentPriors getInstance(File dir) {
+        if (sInstance == null) {
+            sInstance = new IntentPriors(new File(dir, FILE_NAME));
+        }
+        return sInstance;
+    }
+
+    public Snapshot getSnapshot() {
+        return mSnapshot;
+    }
+
+    /** Counts one execution of {@code intent}. Returns immediately. */
+    public void record(final CommandIntent intent) {
+        if (intent == CommandIntent.UNKNOWN) {
+            return;
+        }
+        mWorker.execute(() -> {
+            decayTo(System.currentTimeMillis());
+            mCounts[intent.ordinal()] += 1.0f;
+            mSnapshot = new Snapshot(mCounts);
+            scheduleSave();
+        });
+    }
+
+    private void decayTo(long nowMillis) {
+        long elapsed = nowMillis - mDecayedAtMillis;
+        if (mDecayedAtMillis != 0 && elapsed > 0) {
+            float factor = (float) Math.pow(0.5, (double) elapsed / HALF_LIFE_MS);
+            for (int i = 0; i < mCounts.length; i++) {
+                mCounts[i] *= factor;
+            }
+        }
+        mDecayedAtMillis = nowMillis;
+    }
+
+    private void scheduleSave() {
+        if (mSaveScheduled) {
+            return;
+        }
+        mSaveScheduled = true;
+        mWorker.schedule(() -> {
+            mSaveScheduled = false;
+            save();
+        }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void load() {
+        if (!mFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)))) {
+            if (in.readInt() != MAGIC) {
+                EngineLog.w(TAG, "Ignoring priors file with unknown format");
+                return;
+            }
+            mDecayedAtMillis = in.readLong();
+            int entries = in.readUnsignedShort();
+            for (int i = 0; i < entries; i++) {
+                String name = in.readUTF();
+                float count = in.readFloat();
+                try {
+                    mCounts[CommandIntent.valueOf(name).ordinal()] = count;
+                } catch (IllegalArgumentException e) {
+                    // Intent was removed since the file was written
+                }
+            }
+            decayTo(System.currentTimeMillis());
+            mSnapshot = new Snapshot(mCounts);
+            EngineLog.d(TAG, "Loaded priors for " + entries + " intents");
+        } catch (IOException e) {
+            EngineLog.w(TAG, "Could not load priors: " + e.getMessage());
+        }
+    }
+
+    private void save() {
+        File tmp = new File(mFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            int entries = 0;
+            for (float count : mCounts) {
+                if (count > 0) {
+                    entries++;
+                }
+            }
+            out.writeInt(MAGIC);
+            out.writeLong(mDecayedAtMillis);
+            out.writeShort(entries);
+            for (CommandIntent intent : CommandIntent.VALUES) {
+                float count = mCounts[intent.ordinal()];
+                if (count > 0) {
+                    out.writeUTF(intent.name());
+                    out.writeFloat(count);
+                }
+            }
+        } catch (IOException e) {
+            EngineLog.w(TAG, "Could not save priors: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(mFile)) {
+            EngineLog.w(TAG, "Could not replace " + mFile);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.buddy.assistant;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Keyword matching for commands the classifier isn't confident about, e.g. "flash" or
+ * "wifi" on their own. Shared by every entry point through {@link CommandEngine}.
+ */
+public class KeywordFallback implements CommandEngine.Fallback {
+    
+    private final Context mContext;
+    
+    public KeywordFallback(Context context) {
+        mContext = context;
+    }
+    
+    @Override
+    public String handle(String command, String lowerCommand) {
+        try {
+            // Alarm commands
+            if (lowerCommand.contains("alarm")) {
+                try {
+                    // Try to parse time from command
+                    String timeMessage = "";
+                    if (lowerCommand.contains("7") && lowerCommand.contains("am")) {
+                        timeMessage = " for 7:00 AM";
+                    } else if (lowerCommand.contains("tomorrow")) {
+                        timeMessage = " for tomorrow";
+                    }
+                    
+                    LaunchTargetCache targets = LaunchTargetCache.get(mContext);
+                    Intent alarmIntent = targets.newIntent(LaunchTargetCache.Capability.CLOCK);
+                    if (alarmIntent == null) {
+                        // Final fallback - open any time-related app
+                        Intent timeIntent = new Intent(android.provider.Settings.ACTION_DATE_SETTINGS);
+                        startActivity(timeIntent);
+                        return "✅ Opening time settings (alarm app not found)";
+                    }
+                    alarmIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                    if (!targets.handlesIntent(LaunchTargetCache.Capability.CLOCK)) {
+                        startActivity(alarmIntent);
+                        return "✅ Opening clock app for alarm" + timeMessage;
+                    }
+                    
+                    // Add time if we can parse it
+                    if (lowerCommand.contains("7") && lowerCommand.contains("am")) {
+                        alarmIntent.putExtra(android.provider.AlarmClock.EXTRA_HOUR, 7);
+                        alarmIntent.putExtra(android.provider.AlarmClock.EXTRA_MINUTES, 0);
+                        alarmIntent.putExtra(android.provider.AlarmClock.EXTRA_MESSAGE, "Buddy Assistant Alarm");
+                    }
+                    startActivity(alarmIntent);
+                    return "✅ Setting alarm" + timeMessage;
+                } catch (Exception e) {
+                    return "❌ Could not open alarm app: " + e.getMessage();
+                }
+            }
+            // Flashlight commands - support multiple variations
+            else if (lowerCommand.contains("flashlight") || lowerCommand.contains("torch") || 
+                     lowerCommand.contains("flash") || lowerCommand.contains("light")) {
+                try {
+                    // Try to control flashlight directly
+                    TorchController torch = TorchController.get(mContext);
+                    if (!torch.hasFlash()) {
+                        throw new IllegalStateException("No flash unit");
+                    }
+                    if (lowerCommand.contains("on") || lowerCommand.contains("turn on")) {
+                        // Turn on flashlight
+                        torch.setTorch(true);
+                        return "✅ Flashlight turned ON";
+                    } else if (lowerCommand.contains("off") || lowerCommand.contains("turn off")) {
+                        // Turn off flashlight
+                        torch.setTorch(false);
+                        return "✅ Flashlight turned OFF";
+                    } else {
+                        // Toggle flashlight from its real state
+                        boolean on = !torch.isTorchOn();
+                        torch.setTorch(on);
+                        return on ? "✅ Flashlight toggled ON" : "✅ Flashlight toggled OFF";
+                    }
+                } catch (Exception e) {
+                    // Fallback to opening camera app
+                    try {
+                        Intent cameraIntent = new Intent(android.provider.MediaStore.ACTION_IMAGE_CAPTURE);
+                        startActivity(cameraIntent);
+                        return "✅ Opening camera for flashlight control";
+                    } catch (Exception e2) {
+                        return "❌ Flashlight control not available: " + e.getMessage();
+                    }
+                }
+            }
+            // Bluetooth commands
+            else if (lowerCommand.contains("bluetooth")) {
+                try {
+                    android.bluetooth.BluetoothAdapter bluetoothAdapter = SystemServices.get(mContext).getBluetoothAdapter();
+                    if (bluetoothAdapter == null) {
+                        return "❌ Bluetooth not available on this device";
+                    }
+                    boolean bluetoothOn = DeviceStateCache.get(mContext).isBluetoothOn();
+                    
+                    if (lowerCommand.contains("on") || lowerCommand.contains("turn on") || lowerCommand.contains("open")) {
+                        if (!bluetoothOn) {
+                            // Use proper Bluetooth enabling with user permission
+                            Intent enableBtIntent = new Intent(android.bluetooth.BluetoothAdapter.ACTION_REQUEST_ENABLE);
+                            startActivity(enableBtIntent);
+                            return "✅ Requesting Bluetooth permission...";
+                        } else {
+                            return "✅ Bluetooth is already ON";
+                        }
+                    } else if (lowerCommand.contains("off") || lowerCommand.contains("turn off")) {
+                        if (bluetoothOn) {
+                            bluetoothAdapter.disable();
+                            return "✅ Bluetooth turned OFF";
+                        } else {
+                            return "✅ Bluetooth is already OFF";
+                        }
+                    } else {
+                        // Toggle Bluetooth
+                        if (bluetoothOn) {
+                            bluetoothAdapter.disable();
+                            return "✅ Bluetooth toggled OFF";
+                        } else {
+                            bluetoothAdapter.enable();
+                            return "✅ Bluetooth toggled ON";
+                        }
+                    }
+                } catch (Exception e) {
+                    // Fallback to opening settings
+                    try {
+                        Intent intent = new Intent(android.provider.Settings.ACTION_BLUETOOTH_SETTINGS);
+                        startActivity(intent);
+                        return "✅ Opening Bluetooth settings (direct control failed)";
+                    } catch (Exception e2) {
+                        return "❌ Could not control Bluetooth: " + e.getMessage();
+                    }
+                }
+            }
+            // WiFi commands
+            else if (lowerCommand.contains("wifi") || lowerCommand.contains("wi-fi")) {
+                try {
+                    android.net.wifi.WifiManager wifiManager = SystemServices.get(mContext).getWifiManager();
+                    if (wifiManager == null) {
+                        return "❌ WiFi not available on this device";
+                    }
+                    boolean wifiOn = DeviceStateCache.get(mContext).isWifiOn();
+                    
+                    if (lowerCommand.contains("on") || lowerCommand.contains("turn on")) {
+                        if (!wifiOn) {
+                            wifiManager.setWifiEnabled(true);
+                            return "✅ WiFi turned ON";
+                        } else {
+                            return "✅ WiFi is already ON";
+                        }
+                    } else if (lowerCommand.contains("off") || lowerCommand.contains("turn off")) {
+                        if (wifiOn) {
+                            wifiManager.setWifiEnabled(false);
+                            return "✅ WiFi turned OFF";
+                        } else {
+                            return "✅ WiFi is already OFF";
+                        }
+                    } else {
+                        // Toggle WiFi
+                        if (wifiOn) {
+                            wifiManager.setWifiEnabled(false);
+                            return "✅ WiFi toggled OFF";
+                        } else {
+                            wifiManager.setWifiEnabled(true);
+                            return "✅ WiFi toggled ON";
+                        }
+                    }
+                } catch (Exception e) {
+                    // Fallback to opening settings
+                    try {
+                        Intent intent = new Intent(android.provider.Settings.ACTION_WIFI_SETTINGS);
+                        startActivity(intent);
+                        return "✅ Opening WiFi settings (direct control failed)";
+                    } catch (Exception e2) {
+                        return "❌ Could not control WiFi: " + e.getMessage();
+                    }
+                }
+            }
+            // Settings commands
+            else if (lowerCommand.contains("settings") || lowerCommand.contains("setting")) {
+                try {
+                    Intent intent = new Intent(android.provider.Settings.ACTION_SETTINGS);
+                    startActivity(intent);
+                    return "✅ Opening device settings";
+                } catch (Exception e) {
+                    return "❌ Could not open settings";
+                }
+            }
+            // Volume commands
+            else if (lowerCommand.contains("volume") || lowerCommand.contains("sound")) {
+                try {
+                    android.media.AudioManager audioManager = SystemServices.get(mContext).getAudioManager();
+                    
+                    if (lowerCommand.contains("increase") || lowerCommand.contains("up") || lowerCommand.contains("higher")) {
+                        // Increase media volume
+                        int currentVolume = audioManager.getStreamVolume(android.media.AudioManager.STREAM_MUSIC);
+                        int maxVolume = audioManager.getStreamMaxVolume(android.media.AudioManager.STREAM_MUSIC);
+                        
+                        if (lowerCommand.contains("100") || lowerCommand.contains("max")) {
+                            audioManager.setStreamVolume(android.media.AudioManager.STREAM_MUSIC, maxVolume, 0);
+                            return "✅ Volume set to maximum";
+                        } else {
+                            int newVolume = Math.min(currentVolume + 2, maxVolume);
+                            audioManager.setStreamVolume(android.media.AudioManager.STREAM_MUSIC, newVolume, 0);
+                            return "✅ Volume increased";
+                        }
+                    } else if (lowerCommand.contains("decrease") || lowerCommand.contains("down") || lowerCommand.contains("lower")) {
+                        // Decrease media volume
+                        int currentVolume = audioManager.getStreamVolume(android.media.AudioManager.STREAM_MUSIC);
+                        int newVolume = Math.max(currentVolume - 2, 0);
+                        audioManager.setStreamVolume(android.media.AudioManager.STREAM_MUSIC, newVolume, 0);
+                        return "✅ Volume decreased";
+                    } else {
+                        // Show volume settings
+                        Intent intent = new Intent(android.provider.Settings.ACTION_SOUND_SETTINGS);
+                        startActivity(intent);
+                        return "✅ Opening sound settings";
+                    }
+                } catch (Exception e) {
+                    return "❌ Could not control volume: " + e.getMessage();
+                }
+            }
+            // Brightness commands
+            else if (lowerCommand.contains("brightness") || lowerCommand.contains("bright")) {
+                try {
+                    Intent intent = new Intent(android.provider.Settings.ACTION_DISPLAY_SETTINGS);
+                    startActivity(intent);
+                    return "✅ Opening display settings for brightness";
+                } catch (Exception e) {
+                    return "✅ Brightness control (simulated)";
+                }
+            }
+            // Camera commands
+            else if (lowerCommand.contains("camera") || lowerCommand.contains("photo")) {
+                try {
+                    LaunchTargetCache targets = LaunchTargetCache.get(mContext);
+                    Intent cameraIntent = targets.newIntent(LaunchTargetCache.Capability.CAMERA);
+                    if (cameraIntent != null) {
+                        cameraIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                        startActivity(cameraIntent);
+                        return "✅ Opening camera";
+                    }
+                    
+                    // Final fallback - open gallery
+                    Intent galleryIntent = targets.newIntent(LaunchTargetCache.Capability.GALLERY);
+                    if (galleryIntent != null) {
+                        galleryIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                        startActivity(galleryIntent);
+                        return "✅ Opening gallery (camera not found)";
+                    } else {
+                        return "❌ No camera or gallery app available";
+                    }
+                } catch (Exception e) {
+                    return "❌ Could not open camera: " + e.getMessage();
+                }
+            }
+            // Help command
+            else if (lowerCommand.contains("help") || lowerCommand.contains("what can you do")) {
+                return "🤖 I can help with:\n" +
+                       "• Alarms: 'set alarm for 7 AM'\n" +
+                       "• Flashlight: 'turn on flash' or 'flashlight'\n" +
+                       "• Bluetooth: 'turn on bluetooth'\n" +
+                       "• WiFi: 'turn on wifi'\n" +
+                       "• Settings: 'open settings'\n" +
+                       "• Volume: 'increase volume'\n" +
+                       "• Brightness: 'increase brightness'\n" +
+                       "• Camera: 'open camera'";
+            }
+            else {
+                return "I heard: \"" + command + "\"\n\n" +
+                       "I can help with: alarms, flashlight/flash, bluetooth, wifi, settings, volume, brightness, camera.\n" +
+                       "Try: 'turn on flash' or 'set alarm for 7 AM'";
+            }
+        } catch (Exception e) {
+            return "Sorry, I encountered an error processing that command: " + e.getMessage();
+        }
+    }
+    
+    private void startActivity(Intent intent) {
+        // The engine may run with a service context, which needs a task to launch into
+        if (!(mContext instanceof Activity)) {
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        }
+        mContext.startActivity(intent);
+    }
+}
@@ -0,0 +1,200 @@
+package com.buddy.assistant;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Remembers which app handles each kind of launch, so a command starts its activity with
+ * one {@code startActivity} call instead of probing candidates with {@code resolveActivity}.
+ *
+ * Every capability has a preferred intent ("set an alarm") and a list of known apps whose
+ * launcher activity is used when nothing handles that intent. Targets are resolved on the
+ * {@link BackgroundThread} at startup and again after any package change; a command that
+ * runs before then resolves its own capability once on the calling thread.
+ */
+public final class LaunchTargetCache implements PackageChangeMonitor.Listener {
+    private static final String TAG = "LaunchTargetCache";
+
+    // Package changes tend to come in bursts during updates
+    private static final long REFRESH_DELAY_MS = 1000;
+
+    public enum Capability {
+        CAMERA("com.android.camera2", "com.android.camera", "com.google.android.GoogleCamera",
+                "com.oneplus.camera", "com.samsung.camera", "com.miui.camera") {
+            @Override
+            Intent createIntent() {
+                return new Intent(android.provider.MediaStore.INTENT_ACTION_STILL_IMAGE_CAMERA);
+            }
+        },
+
+        CLOCK("com.android.deskclock", "com.google.android.deskclock") {
+            @Override
+            Intent createIntent() {
+                return new Intent(android.provider.AlarmClock.ACTION_SET_ALARM);
+            }
+        },
+
+        GALLERY("org.lineageos.glimpse", "com.android.gallery3d") {
+            @Override
+            Intent createIntent() {
+                Intent intent = new Intent(Intent.ACTION_VIEW);
+                intent.setType("image/*");
+                return intent;
+            }
+        },
+
+        CALENDAR("org.lineageos.etar", "com.android.calendar") {
+            @Override
+            Intent createIntent() {
+                Intent intent = new Intent(Intent.ACTION_INSERT);
+                intent.setData(android.provider.CalendarContract.Events.CONTENT_URI);
+                return intent;
+            }
+        },
+
+        MAPS("com.google.android.apps.maps", "net.osmand.plus") {
+            @Override
+            Intent createIntent() {
+                Intent intent = new Intent(Intent.ACTION_VIEW);
+                intent.setData(android.net.Uri.parse("geo:0,0"));
+                return intent;
+            }
+        },
+
+        DIALER("com.android.dialer") {
+            @Override
+            Intent createIntent() {
+                return new Intent(Intent.ACTION_DIAL);
+            }
+        };
+
+        private final String[] mFallbackPackages;
+
+        Capability(String... fallbackPackages) {
+            mFallbackPackages = fallbackPackages;
+        }
+
+        /** The capability's own intent, before a target is known. */
+        abstract Intent createIntent();
+    }
+
+    /** Where a capability's launches go. */
+    public static final class Target {
+        static final Target NONE = new Target(null, false);
+
+        // Null when the system should pick, e.g. there is more than one handler and no default
+        final ComponentName component;
+        // Whether the component handles the capability's intent, or is only a launcher entry
+        final boolean direct;
+
+        Target(ComponentName component, boolean direct) {
+            this.component = component;
+            this.direct = direct;
+        }
+    }
+
+    private static LaunchTargetCache sInstance;
+
+    private final PackageManager mPackageManager;
+    private volatile Target[] mTargets = new Target[Capability.values().length];
+
+    private final Runnable mRefresh = this::refresh;
+
+    private LaunchTargetCache(Context context) {
+        mPackageManager = context.getPackageManager();
+        PackageChangeMonitor.get(context).addListener(this);
+        BackgroundThread.getHandler().post(mRefresh);
+    }
+
+    /** Returns the process-wide cache, starting to fill it if needed. */
+    public static synchronized LaunchTargetCache get(Context context) {
+        if (sInstance == null) {
+            sInstance = new LaunchTargetCache(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns a new intent that opens {@code capability}'s target, or null if no app can
+     * handle it. If {@link #handlesIntent} is true it is the capability's own intent, so the
+     * caller can add data and extras; otherwise it just opens the app.
+     */
+    public Intent newIntent(Capability capability) {
+        Target target = getTarget(capability);
+        if (target == Target.NONE) {
+            return null;
+        }
+        Intent intent;
+        if (target.direct) {
+            intent = capability.createIntent();
+        } else {
+            intent = new Intent(Intent.ACTION_MAIN);
+            intent.addCategory(Intent.CATEGORY_LAUNCHER);
+        }
+        if (target.component != null) {
+            intent.setComponent(target.component);
+        }
+        return intent;
+    }
+
+    /** Whether {@link #newIntent} returns the capability's own intent for {@code capability}. */
+    public boolean handlesIntent(Capability capability) {
+        return getTarget(capability).direct;
+    }
+
+    private Target getTarget(Capability capability) {
+        Target[] targets = mTargets;
+        Target target = targets[capability.ordinal()];
+        if (target == null) {
+            // Not filled yet or just invalidated; another thread resolving the same one is harmless
+            target = resolve(capability);
+            targets[capability.ordinal()] = target;
+        }
+        return target;
+    }
+
+    @Override
+    public void onPackageChanged(String packageName) {
+        // Resolve again on demand until the refresh has run
+        mTargets = new Target[Capability.values().length];
+        BackgroundThread.getHandler().removeCallbacks(mRefresh);
+        BackgroundThread.getHandler().postDelayed(mRefresh, REFRESH_DELAY_MS);
+    }
+
+    private void refresh() {
+        long start = SystemClock.elapsedRealtime();
+        Target[] targets = new Target[Capability.values().length];
+        for (Capability capability : Capability.values()) {
+            targets[capability.ordinal()] = resolve(capability);
+        }
+        mTargets = targets;
+        Log.d(TAG, "Resolved launch targets in " + (SystemClock.elapsedRealtime() - start) + "ms");
+    }
+
+    private Target resolve(Capability capability) {
+        ResolveInfo info = mPackageManager.resolveActivity(capability.createIntent(), PackageManager.MATCH_DEFAULT_ONLY);
+        if (info != null && info.activityInfo != null) {
+            // The "android" package means the chooser; let the system show it at launch time
+            ComponentName component = "android".equals(info.activityInfo.packageName) ? null
+                    : new ComponentName(info.activityInfo.packageName, info.activityInfo.name);
+            return new Target(component, true);
+        }
+
+        for (String packageName : capability.mFallbackPackages) {
+            Intent launcher = new Intent(Intent.ACTION_MAIN);
+            launcher.addCategory(Intent.CATEGORY_LAUNCHER);
+            launcher.setPackage(packageName);
+            info = mPackageManager.resolveActivity(launcher, 0);
+            if (info != null && info.activityInfo != null) {
+                return new Target(new ComponentName(info.activityInfo.packageName, info.activityInfo.name), false);
+            }
+        }
+        Log.d(TAG, "Nothing handles " + capability);
+        return Target.NONE;
+    }
+}
@@ -0,0 +1,76 @@
+package com.buddy.assistant;
+
+import android.content.Context;
+import android.content.Intent;
+import java.util.Map;
+
+/**
+ * Handles media playback keys.
+ */
+class MediaHandler extends BaseCommandHandler {
+
+    MediaHandler(Context context) {
+        super(context);
+    }
+
+    @Override
+    public String handle(CommandIntent intent, Map<String, String> params) {
+        switch (intent) {
+            case MEDIA_PLAY:
+                return playMedia();
+            case MEDIA_PAUSE:
+                return pauseMedia();
+            case MEDIA_NEXT:
+                return nextMedia();
+            case MEDIA_PREVIOUS:
+                return previousMedia();
+            default:
+                return "❌ AI Command not implemented: " + intent;
+        }
+    }
+    
+    // Content & Media
+    private String playMedia() {
+        try {
+            Intent intent = new Intent(Intent.ACTION_MEDIA_BUTTON);
+            intent.putExtra(Intent.EXTRA_KEY_EVENT, new android.view.KeyEvent(android.view.KeyEvent.ACTION_DOWN, android.view.KeyEvent.KEYCODE_MEDIA_PLAY));
+            sendBroadcast(intent);
+            return "✅ Playing media";
+        } catch (Exception e) {
+            return "❌ Could not play media: " + e.getMessage();
+        }
+    }
+    
+    private String pauseMedia() {
+        try {
+            Intent intent = new Intent(Intent.ACTION_MEDIA_BUTTON);
+            intent.putExtra(Intent.EXTRA_KEY_EVENT, new android.view.KeyEvent(android.view.KeyEvent.ACTION_DOWN, android.view.KeyEvent.KEYCODE_MEDIA_PAUSE));
+            sendBroadcast(intent);
+            return "✅ Pausing media";
+        } catch (Exception e) {
+            return "❌ Could not pause media: " + e.getMessage();
+        }
+    }
+    
+    private String nextMedia() {
+        try {
+            Intent intent = new Intent(Intent.ACTION_MEDIA_BUTTON);
+            intent.putExtra(Intent.EXTRA_KEY_EVENT, new android.view.KeyEvent(android.view.KeyEvent.ACTION_DOWN, android.view.KeyEvent.KEYCODE_MEDIA_NEXT));
+            sendBroadcast(intent);
+            return "✅ Next track";
+        } catch (Exception e) {
+            return "❌ Could not skip to next: " + e.getMessage();
+        }
+    }
+    
+    private String previousMedia() {
+        try {
+            Intent intent = new Intent(Intent.ACTION_MEDIA_BUTTON);
+            intent.putExtra(Intent.EXTRA_KEY_EVENT, new android.view.KeyEvent(android.view.KeyEvent.ACTION_DOWN, android.view.KeyEvent.KEYCODE_MEDIA_PREVIOUS));
+            sendBroadcast(intent);
+            return "✅ Previous track";
+        } catch (Exception e) {
+            return "❌ Could not go to previous: " + e.getMessage();
+        }
+    }
+}
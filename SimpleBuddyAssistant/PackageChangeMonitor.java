@@ -0,0 +1,73 @@
+package com.buddy.assistant;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+import android.util.Log;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fans out package install, removal and update broadcasts to in-process indexes, so each
+ * of them can refresh just the package that changed instead of rescanning everything.
+ *
+ * One receiver is registered for the whole process, on the {@link BackgroundThread}, and
+ * listeners are called there.
+ */
+public final class PackageChangeMonitor {
+    private static final String TAG = "PackageChangeMonitor";
+
+    /** Called on the background thread for every added, removed or changed package. */
+    public interface Listener {
+        void onPackageChanged(String packageName);
+    }
+
+    private static PackageChangeMonitor sInstance;
+
+    private final CopyOnWriteArrayList<Listener> mListeners = new CopyOnWriteArrayList<>();
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Uri data = intent.getData();
+            String packageName = data != null ? data.getSchemeSpecificPart() : null;
+            if (packageName == null) {
+                return;
+            }
+            // An update sends REMOVED then ADDED; the ADDED one is enough
+            if (Intent.ACTION_PACKAGE_REMOVED.equals(intent.getAction())
+                    && intent.getBooleanExtra(Intent.EXTRA_REPLACING, false)) {
+                return;
+            }
+            Log.d(TAG, intent.getAction() + " " + packageName);
+            for (Listener listener : mListeners) {
+                listener.onPackageChanged(packageName);
+            }
+        }
+    };
+
+    private PackageChangeMonitor(Context context) {
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addDataScheme("package");
+        context.registerReceiver(mReceiver, filter, null, BackgroundThread.getHandler());
+    }
+
+    public static synchronized PackageChangeMonitor get(Context context) {
+        if (sInstance == null) {
+            sInstance = new PackageChangeMonitor(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    public void addListener(Listener listener) {
+        mListeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+}
@@ -0,0 +1,69 @@
+package com.buddy.assistant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A named set of commands run together, such as "night" for Do Not Disturb, dark theme,
+ * low brightness and silent mode.
+ *
+ * Steps form a dependency graph: a step runs once every step it comes after has
+ * succeeded, and steps without a dependency between them run at the same time. A step
+ * can only come after earlier steps, so the graph never has a cycle.
+ */
+public final class Routine {
+
+    /** One command of a routine. */
+    public static final class Step {
+        public final CommandIntent intent;
+        public final Map<String, String> params;
+        // Indexes of earlier steps that have to succeed first
+        final int[] after;
+
+        public Step(CommandIntent intent, Map<String, String> params, int... after) {
+            this.intent = intent;
+            this.params = Collections.unmodifiableMap(new HashMap<>(params));
+            this.after = after.clone();
+        }
+
+        public Step(CommandIntent intent, int... after) {
+            this(intent, Collections.emptyMap(), after);
+        }
+    }
+
+    private final String mName;
+    private final List<Step> mSteps;
+
+    /**
+     * @throws IllegalArgumentException if a step comes after itself or a later step
+     */
+    public Routine(String name, List<Step> steps) {
+        mName = name.toLowerCase(Locale.ROOT).trim();
+        mSteps = Collections.unmodifiableList(new ArrayList<>(steps));
+        for (int i = 0; i < mSteps.size(); i++) {
+            for (int dependency : mSteps.get(i).after) {
+                if (dependency < 0 || dependency >= i) {
+                    throw new IllegalArgumentException("Step " + i + " of " + mName
+                            + " can't come after step " + dependency);
+                }
+            }
+        }
+    }
+
+    public Routine(String name, Step... steps) {
+        this(name, Arrays.asList(steps));
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public List<Step> getSteps() {
+        return mSteps;
+    }
+}
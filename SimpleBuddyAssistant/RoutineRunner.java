@@ -0,0 +1,83 @@
+package com.buddy.assistant;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs a {@link Routine} on a {@link CommandRunner}.
+ *
+ * Each step is dispatched as soon as the steps it comes after have succeeded, so
+ * independent steps wait for their effects at the same time and the routine takes about
+ * as long as its slowest chain. A step whose dependency failed is skipped. The response
+ * lists every step's result and when it finished.
+ */
+public class RoutineRunner {
+    private static final String TAG = "RoutineRunner";
+
+    private final CommandRunner mRunner;
+
+    public RoutineRunner(CommandRunner runner) {
+        mRunner = runner;
+    }
+
+    /** Starts {@code routine} and returns a future of its report. */
+    public CompletableFuture<String> run(Routine routine) {
+        final long start = elapsedMs();
+        final List<Routine.Step> steps = routine.getSteps();
+        final List<CompletableFuture<String>> results = new ArrayList<>(steps.size());
+        final long[] finishedAt = new long[steps.size()];
+
+        for (int i = 0; i < steps.size(); i++) {
+            final int index = i;
+            final Routine.Step step = steps.get(i);
+            CompletableFuture<?>[] dependencies = new CompletableFuture<?>[step.after.length];
+            for (int j = 0; j < step.after.length; j++) {
+                dependencies[j] = results.get(step.after[j]);
+            }
+            CompletableFuture<String> result = CompletableFuture.allOf(dependencies)
+                    .thenComposeAsync(ignored -> {
+                        for (int dependency : step.after) {
+                            if (!succeeded(results.get(dependency).join())) {
+                                return CompletableFuture.completedFuture(
+                                        "⏭ Skipped, " + steps.get(dependency).intent + " did not succeed");
+                            }
+                        }
+                        return mRunner.dispatch(new AICommandProcessor.CommandResult(
+                                step.intent, new HashMap<>(step.params), 1.0f));
+                    }, mRunner)
+                    .exceptionally(e -> "❌ " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()))
+                    .whenComplete((response, error) -> finishedAt[index] = elapsedMs() - start);
+            results.add(result);
+        }
+
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            long elapsed = elapsedMs() - start;
+            int succeeded = 0;
+            StringBuilder report = new StringBuilder();
+            for (int i = 0; i < steps.size(); i++) {
+                String response = results.get(i).join();
+                if (succeeded(response)) {
+                    succeeded++;
+                }
+                report.append("\n• ").append(steps.get(i).intent)
+                        .append(" (+").append(finishedAt[i]).append(" ms): ").append(response);
+            }
+            EngineLog.d(TAG, routine.getName() + ": " + succeeded + "/" + steps.size() + " steps in " + elapsed + " ms");
+            String summary = succeeded == steps.size()
+                    ? "✅ Routine \"" + routine.getName() + "\": " + steps.size() + " steps in " + elapsed + " ms"
+                    : "⚠️ Routine \"" + routine.getName() + "\": " + succeeded + " of " + steps.size()
+                            + " steps succeeded in " + elapsed + " ms";
+            return summary + report;
+        });
+    }
+
+    private static long elapsedMs() {
+        return System.nanoTime() / 1000000;
+    }
+
+    private static boolean succeeded(String response) {
+        return response != null && !response.startsWith("❌") && !response.startsWith("⏭");
+    }
+}
@@ -0,0 +1,232 @@
+package com.buddy.assistant;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The routines saved on this device, looked up by what the user says.
+ *
+ * "night", "good night" and "run the night routine" all find the routine named "night".
+ * Routines are loaded and saved on a private worker thread; until the file has been
+ * read, nothing is found and commands are classified as usual. A device without a saved
+ * file starts with a few built-in routines.
+ */
+public final class RoutineStore {
+    private static final String TAG = "RoutineStore";
+
+    static final String FILE_NAME = "routines.bin";
+
+    private static final int MAGIC = 0x42525431; // "BRT1"
+
+    // Words around a routine's name that aren't part of it
+    private static final Set<String> FILLER_WORDS = new HashSet<>(Arrays.asList(
+            "run", "start", "activate", "the", "my", "good", "routine", "scene", "mode"));
+
+    private static RoutineStore sInstance;
+
+    private final File mFile;
+    private final ExecutorService mWorker;
+    // Immutable; replaced on every change
+    private volatile Map<String, Routine> mRoutines = Collections.emptyMap();
+
+    private RoutineStore(File file) {
+        mFile = file;
+        mWorker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "RoutineStore");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        });
+        mWorker.execute(this::load);
+    }
+
+    /** Returns the process-wide store kept in {@code dir}, loading it in the background. */
+    public static synchronized RoutineStore getInstance(File dir) {
+        if (sInstance == null) {
+            sInstance = new RoutineStore(new File(dir, FILE_NAME));
+        }
+        return sInstance;
+    }
+
+    /** Returns the routine named in {@code command}, or null if it doesn't name one. */
+    public Routine find(String command) {
+        Map<String, Routine> routines = mRoutines;
+        if (routines.isEmpty()) {
+            return null;
+        }
+        StringBuilder name = new StringBuilder();
+        for (String word : command.toLowerCase(Locale.ROOT).trim().split("\\s+")) {
+            if (!FILLER_WORDS.contains(word)) {
+                if (name.length() > 0) {
+                    name.append(' ');
+                }
+                name.append(word);
+            }
+        }
+        return routines.get(name.toString());
+    }
+
+    public Routine get(String name) {
+        return mRoutines.get(name);
+    }
+
+    public List<String> getNames() {
+        List<String> names = new ArrayList<>(mRoutines.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    /** Adds {@code routine}, replacing one with the same name, and saves in the background. */
+    public void put(Routine routine) {
+        mWorker.execute(() -> {
+            Map<String, Routine> routines = new HashMap<>(mRoutines);
+            routines.put(routine.getName(), routine);
+            mRoutines = Collections.unmodifiableMap(routines);
+            save();
+        });
+    }
+
+    public void remove(String name) {
+        mWorker.execute(() -> {
+            Map<String, Routine> routines = new HashMap<>(mRoutines);
+            if (routines.remove(name) != null) {
+                mRoutines = Collections.unmodifiableMap(routines);
+                save();
+            }
+        });
+    }
+
+    // Routines a new install starts with
+    private static List<Routine> defaultRoutines() {
+        return Arrays.asList(
+            new Routine("night",
+                new Routine.Step(CommandIntent.DND_ON),
+                new Routine.Step(CommandIntent.THEME_DARK),
+                new Routine.Step(CommandIntent.BRIGHTNESS_DOWN),
+                new Routine.Step(CommandIntent.SOUND_SILENT)),
+            new Routine("morning",
+                new Routine.Step(CommandIntent.SOUND_RING),
+                new Routine.Step(CommandIntent.BRIGHTNESS_UP),
+                new Routine.Step(CommandIntent.WIFI_ON),
+                // The current weather needs the network
+                new Routine.Step(CommandIntent.WEATHER_CURRENT, 2)),
+            new Routine("drive",
+                new Routine.Step(CommandIntent.BLUETOOTH_ON),
+                new Routine.Step(CommandIntent.SOUND_RING),
+                // Play once the car audio can be connected
+                new Routine.Step(CommandIntent.MEDIA_PLAY, 0)));
+    }
+
+    private void load() {
+        Map<String, Routine> routines = new HashMap<>();
+        if (!mFile.exists()) {
+            for (Routine routine : defaultRoutines()) {
+                routines.put(routine.getName(), routine);
+            }
+            mRoutines = Collections.unmodifiableMap(routines);
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)))) {
+            if (in.readInt() != MAGIC) {
+                EngineLog.w(TAG, "Ignoring routines file with unknown format");
+                return;
+            }
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                Routine routine = readRoutine(in);
+                if (routine != null) {
+                    routines.put(routine.getName(), routine);
+                }
+            }
+            mRoutines = Collections.unmodifiableMap(routines);
+            EngineLog.d(TAG, "Loaded " + routines.size() + " routines");
+        } catch (IOException e) {
+            EngineLog.w(TAG, "Could not load routines: " + e.getMessage());
+        }
+    }
+
+    // Reads one routine, or returns null if it uses an intent that no longer exists or isn't valid
+    private static Routine readRoutine(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        int stepCount = in.readUnsignedShort();
+        List<Routine.Step> steps = new ArrayList<>(stepCount);
+        boolean valid = true;
+        for (int i = 0; i < stepCount; i++) {
+            String intentName = in.readUTF();
+            Map<String, String> params = new HashMap<>();
+            int paramCount = in.readUnsignedShort();
+            for (int j = 0; j < paramCount; j++) {
+                params.put(in.readUTF(), in.readUTF());
+            }
+            int[] after = new int[in.readUnsignedShort()];
+            for (int j = 0; j < after.length; j++) {
+                after[j] = in.readUnsignedShort();
+            }
+            try {
+                steps.add(new Routine.Step(CommandIntent.valueOf(intentName), params, after));
+            } catch (IllegalArgumentException e) {
+                valid = false;
+            }
+        }
+        if (!valid) {
+            EngineLog.w(TAG, "Dropping routine " + name + ", it uses a removed intent");
+            return null;
+        }
+        try {
+            return new Routine(name, steps);
+        } catch (RuntimeException e) {
+            // A damaged file, or a routine written before its checks were stricter; the others still load
+            EngineLog.w(TAG, "Dropping routine " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void save() {
+        File tmp = new File(mFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            Map<String, Routine> routines = mRoutines;
+            out.writeInt(MAGIC);
+            out.writeShort(routines.size());
+            for (Routine routine : routines.values()) {
+                out.writeUTF(routine.getName());
+                out.writeShort(routine.getSteps().size());
+                for (Routine.Step step : routine.getSteps()) {
+                    out.writeUTF(step.intent.name());
+                    out.writeShort(step.params.size());
+                    for (Map.Entry<String, String> param : step.params.entrySet()) {
+                        out.writeUTF(param.getKey());
+                        out.writeUTF(param.getValue());
+                    }
+                    out.writeShort(step.after.length);
+                    for (int dependency : step.after) {
+                        out.writeShort(dependency);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            EngineLog.w(TAG, "Could not save routines: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(mFile)) {
+            EngineLog.w(TAG, "Could not replace " + mFile);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.buddy.assistant;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parameters that can be pulled out of an utterance. Intents list the slots they need
+ * in {@link CommandIntent}; each slot knows how to fill its keys from normalized input.
+ *
+ * Word-based slots look for a trigger word and take what follows it. The triggers
+ * declared here are English; a {@link GrammarPack} can supply its own.
+ */
+public enum Slot {
+    // "set alarm for 7 am" -> time=7, period=am
+    TIME {
+        @Override
+        void extract(String input, String[] words, String[] triggers, Map<String, String> params) {
+            Matcher matcher = TIME_PATTERN.matcher(input);
+            if (matcher.find()) {
+                params.put("time", matcher.group(1));
+                params.put("period", matcher.group(2).toLowerCase());
+            }
+        }
+    },
+
+    // "timer for 5 minutes" -> duration=5, unit=minute
+    DURATION {
+        @Override
+        void extract(String input, String[] words, String[] triggers, Map<String, String> params) {
+            Matcher matcher = DURATION_PATTERN.matcher(input);
+            if (matcher.find()) {
+                params.put("duration", matcher.group(1));
+                params.put("unit", matcher.group(2).toLowerCase());
+            }
+        }
+    },
+
+    // "volume to 80%" -> level=80
+    LEVEL {
+        @Override
+        void extract(String input, String[] words, String[] triggers, Map<String, String> params) {
+            Matcher matcher = LEVEL_PATTERN.matcher(input);
+            if (matcher.find()) {
+                params.put("level", matcher.group(1));
+            }
+        }
+    },
+
+    // "open google maps" -> app_name=google maps
+    APP_NAME("open", "launch", "start") {
+        @Override
+        void extract(String input, String[] words, String[] triggers, Map<String, String> params) {
+            putRestAfter(params, "app_name", words, triggers);
+        }
+    },
+
+    // "call mom mobile" -> contact=mom mobile
+    CONTACT("call", "dial") {
+        @Override
+        void extract(String input, String[] words, String[] triggers, Map<String, String> params) {
+            putRestAfter(params, "contact", words, triggers);
+        }
+
+        @Override
+        boolean isFreeText() {
+            return true;
+        }
+    },
+
+    MESSAGE("send", "text") {
+        @Override
+        void extract(String input, String[] words, String[] triggers, Map<String, String> params) {
+            putRestAfter(params, "message", words, triggers);
+        }
+
+        @Override
+        boolean isFreeText() {
+            return true;
+        }
+    },
+
+    LOCATION("to", "navigate") {
+        @Override
+        void extract(String input, String[] words, String[] triggers, Map<String, String> params) {
+            putRestAfter(params, "location", words, triggers);
+        }
+
+        @Override
+        boolean isFreeText() {
+            return true;
+        }
+    },
+
+    TEXT("translate") {
+        @Override
+        void extract(String input, String[] words, String[] triggers, Map<String, String> params) {
+            putRestAfter(params, "text", words, triggers);
+        }
+
+        @Override
+        boolean isFreeText() {
+            return true;
+        }
+    },
+
+    NOTE("note", "add") {
+        @Override
+        void extract(String input, String[] words, String[] triggers, Map<String, String> params) {
+            putRestAfter(params, "note", words, triggers);
+        }
+
+        @Override
+        boolean isFreeText() {
+            return true;
+        }
+    },
+
+    ITEM("add", "list") {
+        @Override
+        void extract(String input, String[] words, String[] triggers, Map<String, String> params) {
+            putRestAfter(params, "item", words, triggers);
+        }
+
+        @Override
+        boolean isFreeText() {
+            return true;
+        }
+    };
+
+    private final String[] mDefaultTriggers;
+
+    Slot(String... defaultTriggers) {
+        mDefaultTriggers = defaultTriggers;
+    }
+
+    /** English trigger words, used when a grammar pack doesn't define its own. */
+    String[] getDefaultTriggers() {
+        return mDefaultTriggers;
+    }
+
+    private static final Pattern TIME_PATTERN = Pattern.compile("(\\d{1,2})\\s*(am|pm|AM|PM)");
+    private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+)\\s*(minute|min|hour|hr|second|sec)");
+    private static final Pattern LEVEL_PATTERN = Pattern.compile("(\\d+)%?");
+
+    /** Whether the value is everything after the trigger, so it can be arbitrarily long. */
+    boolean isFreeText() {
+        return false;
+    }
+
+    /**
+     * Adds this slot's keys to {@code params} if they can be found in the input.
+     *
+     * @param input normalized utterance
+     * @param words the same utterance split on whitespace
+     * @param triggers words that introduce the value, for word-based slots
+     */
+    abstract void extract(String input, String[] words, String[] triggers, Map<String, String> params);
+
+    // Stores everything following the first trigger word, if there is anything
+    private static void putRestAfter(Map<String, String> params, String key, String[] words, String[] triggers) {
+        int i = indexOfAny(words, triggers);
+        if (i >= 0 && i + 1 < words.length) {
+            StringBuilder rest = new StringBuilder();
+            for (int j = i + 1; j < words.length; j++) {
+                rest.append(words[j]).append(" ");
+            }
+            params.put(key, rest.toString().trim());
+        }
+    }
+
+    private static int indexOfAny(String[] words, String[] candidates) {
+        for (int i = 0; i < words.length; i++) {
+            for (String candidate : candidates) {
+                if (words[i].equals(candidate)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
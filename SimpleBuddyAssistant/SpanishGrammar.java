@@ -0,0 +1,202 @@
+package com.buddy.assistant;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Spanish phrases for {@link CommandIntent}. Only loaded when an utterance arrives
+ * in Spanish.
+ */
+final class SpanishGrammar {
+
+    private SpanishGrammar() {
+    }
+
+    static GrammarPack create() {
+        Map<CommandIntent, String[]> g = new EnumMap<>(CommandIntent.class);
+
+        // Bluetooth y WiFi
+        g.put(CommandIntent.BLUETOOTH_ON, phrases(
+            "activa el bluetooth", "enciende el bluetooth", "activar bluetooth",
+            "encender bluetooth", "bluetooth encendido", "conecta el bluetooth"));
+        g.put(CommandIntent.BLUETOOTH_OFF, phrases(
+            "desactiva el bluetooth", "apaga el bluetooth", "desactivar bluetooth",
+            "apagar bluetooth", "bluetooth apagado", "desconecta el bluetooth"));
+        g.put(CommandIntent.WIFI_ON, phrases(
+            "activa el wifi", "enciende el wifi", "activar wifi", "encender wifi",
+            "conecta el wifi"));
+        g.put(CommandIntent.WIFI_OFF, phrases(
+            "desactiva el wifi", "apaga el wifi", "desactivar wifi", "apagar wifi",
+            "desconecta el wifi"));
+
+        // Linterna y cámara
+        g.put(CommandIntent.FLASHLIGHT_ON, phrases(
+            "enciende la linterna", "activa la linterna", "encender linterna",
+            "prende la linterna", "enciende el flash", "linterna encendida"));
+        g.put(CommandIntent.FLASHLIGHT_OFF, phrases(
+            "apaga la linterna", "desactiva la linterna", "apagar linterna",
+            "apaga el flash", "linterna apagada"));
+        g.put(CommandIntent.FLASHLIGHT_STROBE, phrases(
+            "linterna estroboscópica", "luz estroboscópica", "parpadea la linterna"));
+        g.put(CommandIntent.FLASHLIGHT_SOS, phrases(
+            "sos", "señal de sos", "linterna sos", "señal de auxilio"));
+        g.put(CommandIntent.CAMERA_OPEN, phrases(
+            "abre la cámara", "abrir cámara", "inicia la cámara", "cámara"));
+        g.put(CommandIntent.CAMERA_PHOTO, phrases(
+            "toma una foto", "saca una foto", "hacer una foto", "tomar foto"));
+        g.put(CommandIntent.CAMERA_VIDEO, phrases(
+            "graba un vídeo", "grabar vídeo", "graba un video", "grabar video"));
+        g.put(CommandIntent.SCREENSHOT, phrases(
+            "haz una captura", "captura de pantalla", "captura la pantalla"));
+        g.put(CommandIntent.SCREEN_RECORD, phrases(
+            "graba la pantalla", "grabar pantalla", "grabación de pantalla"));
+
+        // Volumen y sonido
+        g.put(CommandIntent.VOLUME_UP, phrases(
+            "sube el volumen", "subir volumen", "más volumen", "más alto"));
+        g.put(CommandIntent.VOLUME_DOWN, phrases(
+            "baja el volumen", "bajar volumen", "menos volumen", "más bajo"));
+        g.put(CommandIntent.VOLUME_MAX, phrases(
+            "volumen máximo", "volumen al máximo", "volumen al cien"));
+        g.put(CommandIntent.RINGTONE_VOLUME_UP, phrases(
+            "sube el volumen del tono", "sube el tono de llamada"));
+        g.put(CommandIntent.RINGTONE_VOLUME_DOWN, phrases(
+            "baja el volumen del tono", "baja el tono de llamada"));
+        g.put(CommandIntent.ALARM_VOLUME_UP, phrases(
+            "sube el volumen de la alarma", "alarma más alta"));
+        g.put(CommandIntent.ALARM_VOLUME_DOWN, phrases(
+            "baja el volumen de la alarma", "alarma más baja"));
+        g.put(CommandIntent.SOUND_RING, phrases(
+            "modo sonido", "activa el sonido", "modo normal"));
+        g.put(CommandIntent.SOUND_VIBRATE, phrases(
+            "modo vibración", "solo vibración", "vibrar"));
+        g.put(CommandIntent.SOUND_SILENT, phrases(
+            "modo silencio", "silencia el teléfono", "silencio", "desactiva el sonido"));
+        g.put(CommandIntent.DND_ON, phrases(
+            "activa no molestar", "modo no molestar", "no molestar"));
+        g.put(CommandIntent.DND_OFF, phrases(
+            "desactiva no molestar", "quita no molestar"));
+
+        // Alarmas y temporizadores
+        g.put(CommandIntent.ALARM_SET, phrases(
+            "pon una alarma", "crea una alarma", "alarma a las", "despiértame",
+            "poner alarma"));
+        g.put(CommandIntent.ALARM_CANCEL, phrases(
+            "cancela la alarma", "borra la alarma", "quita la alarma", "apaga la alarma"));
+        g.put(CommandIntent.ALARM_LIST, phrases(
+            "muestra las alarmas", "qué alarmas tengo", "lista de alarmas"));
+        g.put(CommandIntent.TIMER_START, phrases(
+            "pon un temporizador", "inicia un temporizador", "temporizador de",
+            "cuenta atrás de"));
+        g.put(CommandIntent.TIMER_STOP, phrases(
+            "para el temporizador", "cancela el temporizador", "detén el temporizador"));
+        g.put(CommandIntent.TIMER_SNOOZE, phrases(
+            "pospón el temporizador", "alarga el temporizador"));
+        g.put(CommandIntent.CREATE_REMINDER, phrases(
+            "crea un recordatorio", "recuérdame", "pon un recordatorio"));
+        g.put(CommandIntent.POMODORO_START, phrases(
+            "inicia un pomodoro", "empieza un pomodoro", "sesión de concentración"));
+
+        // Pantalla
+        g.put(CommandIntent.THEME_DARK, phrases(
+            "modo oscuro", "tema oscuro", "activa el modo oscuro"));
+        g.put(CommandIntent.THEME_LIGHT, phrases(
+            "modo claro", "tema claro", "activa el modo claro"));
+        g.put(CommandIntent.BRIGHTNESS_UP, phrases(
+            "sube el brillo", "más brillo", "aumenta el brillo"));
+        g.put(CommandIntent.BRIGHTNESS_DOWN, phrases(
+            "baja el brillo", "menos brillo", "reduce el brillo"));
+        g.put(CommandIntent.BRIGHTNESS_AUTO, phrases(
+            "brillo automático", "activa el brillo automático"));
+        g.put(CommandIntent.CHANGE_WALLPAPER, phrases(
+            "cambia el fondo de pantalla", "cambiar fondo", "fondo de pantalla"));
+        g.put(CommandIntent.AUTO_ROTATE_ON, phrases(
+            "activa la rotación automática", "activa el giro de pantalla"));
+        g.put(CommandIntent.AUTO_ROTATE_OFF, phrases(
+            "desactiva la rotación automática", "bloquea la rotación"));
+        g.put(CommandIntent.BATTERY_SAVER_ON, phrases(
+            "activa el ahorro de batería", "modo ahorro de energía"));
+        g.put(CommandIntent.BATTERY_SAVER_OFF, phrases(
+            "desactiva el ahorro de batería", "quita el ahorro de batería"));
+
+        // Conectividad
+        g.put(CommandIntent.MOBILE_DATA_ON, phrases(
+            "activa los datos móviles", "enciende los datos"));
+        g.put(CommandIntent.MOBILE_DATA_OFF, phrases(
+            "desactiva los datos móviles", "apaga los datos"));
+        g.put(CommandIntent.HOTSPOT_ON, phrases(
+            "activa el punto de acceso", "activa el hotspot", "comparte internet"));
+        g.put(CommandIntent.HOTSPOT_OFF, phrases(
+            "desactiva el punto de acceso", "desactiva el hotspot"));
+        g.put(CommandIntent.AIRPLANE_MODE_ON, phrases(
+            "activa el modo avión", "modo avión"));
+        g.put(CommandIntent.AIRPLANE_MODE_OFF, phrases(
+            "desactiva el modo avión", "quita el modo avión"));
+        g.put(CommandIntent.NFC_ON, phrases(
+            "activa el nfc", "enciende el nfc"));
+        g.put(CommandIntent.NFC_OFF, phrases(
+            "desactiva el nfc", "apaga el nfc"));
+        g.put(CommandIntent.LOCATION_ON, phrases(
+            "activa la ubicación", "activa el gps", "enciende el gps"));
+        g.put(CommandIntent.LOCATION_OFF, phrases(
+            "desactiva la ubicación", "desactiva el gps", "apaga el gps"));
+
+        // Comunicación
+        g.put(CommandIntent.OPEN_APP, phrases(
+            "abre", "abrir", "inicia", "abre la aplicación"));
+        g.put(CommandIntent.CALL_PHONE, phrases(
+            "llama a", "llamar", "marca", "haz una llamada"));
+        g.put(CommandIntent.SEND_SMS, phrases(
+            "envía un mensaje", "manda un mensaje", "mensaje", "envía un sms"));
+        g.put(CommandIntent.READ_MESSAGES, phrases(
+            "lee los mensajes", "muestra los mensajes", "mensajes sin leer"));
+        g.put(CommandIntent.CREATE_EVENT, phrases(
+            "crea un evento", "añade al calendario", "programa una reunión"));
+
+        // Notas y listas
+        g.put(CommandIntent.ADD_NOTE, phrases(
+            "crea una nota", "añade una nota", "toma nota", "nota"));
+        g.put(CommandIntent.ADD_TO_LIST, phrases(
+            "añade a la lista", "lista de la compra", "agrega a la lista"));
+
+        // Multimedia
+        g.put(CommandIntent.MEDIA_PLAY, phrases(
+            "reproduce música", "pon música", "reproducir", "continúa la música"));
+        g.put(CommandIntent.MEDIA_PAUSE, phrases(
+            "pausa la música", "para la música", "pausa", "detén la música"));
+        g.put(CommandIntent.MEDIA_NEXT, phrases(
+            "siguiente canción", "siguiente", "salta la canción"));
+        g.put(CommandIntent.MEDIA_PREVIOUS, phrases(
+            "canción anterior", "anterior", "vuelve atrás"));
+
+        // Información y navegación
+        g.put(CommandIntent.WEATHER_CURRENT, phrases(
+            "qué tiempo hace", "el tiempo hoy", "tiempo ahora"));
+        g.put(CommandIntent.WEATHER_FORECAST, phrases(
+            "previsión del tiempo", "el tiempo mañana", "pronóstico"));
+        g.put(CommandIntent.NAVIGATE_TO, phrases(
+            "llévame a", "navega a", "cómo llegar a", "ruta a"));
+        g.put(CommandIntent.COMMUTE_TIME, phrases(
+            "tiempo al trabajo", "tiempo a casa", "cuánto tardo en llegar"));
+        g.put(CommandIntent.TRANSLATE, phrases(
+            "traduce", "cómo se dice", "traducir"));
+        g.put(CommandIntent.SMART_HOME_CONTROL, phrases(
+            "enciende las luces", "apaga las luces", "casa inteligente"));
+
+        Map<Slot, String[]> triggers = new EnumMap<>(Slot.class);
+        triggers.put(Slot.APP_NAME, phrases("abre", "abrir", "inicia", "lanza"));
+        triggers.put(Slot.CONTACT, phrases("a", "marca"));
+        triggers.put(Slot.MESSAGE, phrases("mensaje", "envia", "manda", "escribe"));
+        triggers.put(Slot.LOCATION, phrases("a", "hasta", "hacia"));
+        triggers.put(Slot.TEXT, phrases("traduce", "traducir", "dice"));
+        triggers.put(Slot.NOTE, phrases("nota", "anota"));
+        triggers.put(Slot.ITEM, phrases("lista", "anade", "agrega"));
+
+        return new GrammarPack(new Locale("es"), g, triggers);
+    }
+
+    private static String[] phrases(String... phrases) {
+        return phrases;
+    }
+}
@@ -0,0 +1,149 @@
+package com.buddy.assistant;
+
+import android.content.Context;
+import android.hardware.camera2.CameraAccessException;
+import android.os.Handler;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.speech.SpeechRecognizer;
+import android.util.Log;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Does the one-time work of the first command ahead of time, on the
+ * {@link BackgroundThread}, so that command runs as fast as later ones.
+ *
+ * Started by whichever component the process starts with. Each stage is a separate
+ * message, so index builds queued meanwhile aren't held up, and a trace section, so it
+ * shows up in a startup trace; the time each took is logged and dumped with the
+ * metrics, together with how long after process start the first command finished.
+ */
+final class StartupWarmup {
+    private static final String TAG = "StartupWarmup";
+
+    // Exercises parsing, the grammar and slot extraction, without being executed
+    private static final String WARMUP_COMMAND = "set an alarm for 7 am";
+
+    private static StartupWarmup sInstance;
+
+    private final Context mContext;
+    private final Handler mHandler;
+    private final CompletableFuture<Boolean> mRecognitionAvailable = new CompletableFuture<>();
+    // Written on the background thread, read by dump()
+    private final StringBuffer mStages = new StringBuffer();
+    private volatile long mDoneUptimeMillis;
+
+    private StartupWarmup(Context context) {
+        mContext = context;
+        mHandler = BackgroundThread.getHandler();
+        post("classifier", this::warmClassifier);
+        post("recognizer", this::checkRecognition);
+        post("engine", () -> AssistantRuntime.get(mContext));
+        post("services", this::resolveServices);
+        post("launch targets", this::startIndexes);
+        mHandler.post(() -> {
+            mDoneUptimeMillis = SystemClock.uptimeMillis();
+            Log.i(TAG, "Done " + (mDoneUptimeMillis - Process.getStartUptimeMillis())
+                    + " ms after process start: " + mStages);
+        });
+    }
+
+    /** Returns the process-wide warm-up, starting it if needed. */
+    static synchronized StartupWarmup get(Context context) {
+        if (sInstance == null) {
+            sInstance = new StartupWarmup(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /** Completes with whether speech recognition is available, once warm-up has checked. */
+    CompletableFuture<Boolean> whenRecognitionChecked() {
+        return mRecognitionAvailable;
+    }
+
+    /**
+     * Completes on the background thread once the warm-up has checked for speech
+     * recognition, with a new {@link IncrementalClassifier} for the caller's partial
+     * results, or null if recognition isn't available. Neither the check nor building the
+     * classifier then runs on the main thread.
+     */
+    CompletableFuture<IncrementalClassifier> whenSpeechReady() {
+        return mRecognitionAvailable.thenApplyAsync(
+                available -> available ? new IncrementalClassifier(Locale.getDefault()) : null, mHandler::post);
+    }
+
+    void dump(PrintWriter writer) {
+        long startUptimeMillis = Process.getStartUptimeMillis();
+        long done = mDoneUptimeMillis;
+        writer.println("Startup warm-up: " + (done == 0 ? "running" : (done - startUptimeMillis)
+                + " ms after process start") + " (" + mStages + ")");
+        long firstNanos = CommandMetrics.get().getFirstExecutionNanos();
+        if (firstNanos != 0) {
+            writer.println("First command finished " + (TimeUnit.NANOSECONDS.toMillis(firstNanos)
+                    - startUptimeMillis) + " ms after process start");
+        }
+    }
+
+    // Runs a stage as its own message, traced and timed; a failed stage is left for the first command to retry
+    private void post(String name, Runnable stage) {
+        mHandler.post(() -> {
+            long start = System.nanoTime();
+            Trace.beginSection("Warm-up: " + name);
+            try {
+                stage.run();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Warm-up of " + name + " failed: " + e.getMessage());
+            } finally {
+                Trace.endSection();
+            }
+            if (mStages.length() > 0) {
+                mStages.append(", ");
+            }
+            mStages.append(name).append(' ')
+                    .append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).append(" ms");
+        });
+    }
+
+    // Loads the classifier's classes and the grammar for the user's language
+    private void warmClassifier() {
+        AICommandProcessor.processCommand(WARMUP_COMMAND);
+        new IncrementalClassifier(Locale.getDefault()).update(WARMUP_COMMAND);
+    }
+
+    private void checkRecognition() {
+        boolean available = false;
+        try {
+            available = SpeechRecognizer.isRecognitionAvailable(mContext);
+        } finally {
+            // Those waiting on the check go on without speech if it failed
+            mRecognitionAvailable.complete(available);
+        }
+    }
+
+    private void resolveServices() {
+        SystemServices services = SystemServices.get(mContext);
+        services.getAudioManager();
+        services.getCameraManager();
+        services.getWifiManager();
+        services.getNotificationManager();
+        services.getBluetoothAdapter();
+        DeviceStateCache.get(mContext);
+        try {
+            // Finds the flash camera, a few binder calls per camera
+            TorchController.get(mContext).hasFlash();
+        } catch (CameraAccessException e) {
+            Log.w(TAG, "Could not find the flash camera: " + e.getMessage());
+        }
+    }
+
+    // Each index builds itself in later messages on this thread
+    private void startIndexes() {
+        LaunchTargetCache.get(mContext);
+        AppLabelIndex.get(mContext);
+        ContactIndex.get(mContext);
+    }
+}
@@ -0,0 +1,96 @@
+package com.buddy.assistant;
+
+import android.app.NotificationManager;
+import android.bluetooth.BluetoothAdapter;
+import android.content.Context;
+import android.hardware.camera2.CameraManager;
+import android.media.AudioManager;
+import android.net.wifi.WifiManager;
+
+/**
+ * Process-wide handles to the system services that commands act on.
+ *
+ * Each manager is looked up the first time it is needed and then reused, so executing a
+ * command doesn't pay for a service lookup and cast every time. Lookups go through the
+ * application context, which is safe to hold for the life of the process.
+ *
+ * Getters may be called from any thread. Two threads racing on the first lookup both get
+ * the same manager, because the framework caches them per context, so the fields only
+ * need to be volatile.
+ */
+public final class SystemServices {
+
+    private static volatile SystemServices sInstance;
+
+    private final Context mContext;
+
+    private volatile AudioManager mAudioManager;
+    private volatile CameraManager mCameraManager;
+    private volatile WifiManager mWifiManager;
+    private volatile NotificationManager mNotificationManager;
+    private volatile BluetoothAdapter mBluetoothAdapter;
+
+    private SystemServices(Context context) {
+        mContext = context;
+    }
+
+    public static SystemServices get(Context context) {
+        SystemServices instance = sInstance;
+        if (instance == null) {
+            synchronized (SystemServices.class) {
+                instance = sInstance;
+                if (instance == null) {
+                    instance = new SystemServices(context.getApplicationContext());
+                    sInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public AudioManager getAudioManager() {
+        AudioManager manager = mAudioManager;
+        if (manager == null) {
+            manager = mContext.getSystemService(AudioManager.class);
+            mAudioManager = manager;
+        }
+        return manager;
+    }
+
+    public CameraManager getCameraManager() {
+        CameraManager manager = mCameraManager;
+        if (manager == null) {
+            manager = mContext.getSystemService(CameraManager.class);
+            mCameraManager = manager;
+        }
+        return manager;
+    }
+
+    public WifiManager getWifiManager() {
+        WifiManager manager = mWifiManager;
+        if (manager == null) {
+            manager = mContext.getSystemService(WifiManager.class);
+            mWifiManager = manager;
+        }
+        return manager;
+    }
+
+    public NotificationManager getNotificationManager() {
+        NotificationManager manager = mNotificationManager;
+        if (manager == null) {
+            manager = mContext.getSystemService(NotificationManager.class);
+            mNotificationManager = manager;
+        }
+        return manager;
+    }
+
+    /** The default adapter, or null on devices without Bluetooth. */
+    public BluetoothAdapter getBluetoothAdapter() {
+        BluetoothAdapter adapter = mBluetoothAdapter;
+        if (adapter == null) {
+            adapter = BluetoothAdapter.getDefaultAdapter();
+            mBluetoothAdapter = adapter;
+        }
+        return adapter;
+    }
+}
@@ -0,0 +1,212 @@
+package com.buddy.assistant;
+
+import android.content.Context;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+/**
+ * Owns the flashlight for the whole process.
+ *
+ * The camera with a flash unit is found once, preferring the back camera, instead of
+ * assuming it is camera 0. The real torch state is tracked through a
+ * {@link CameraManager.TorchCallback}, so asking for the state the torch is already in
+ * doesn't touch the camera service at all. Until the callback or a request of ours has
+ * established the state, e.g. when another app left the torch on, every request is sent.
+ *
+ * Strobe and SOS patterns run on the controller's own thread from fixed timing tables; a
+ * step reuses the same runnable, so a running pattern allocates nothing. Any steady on or
+ * off request stops the pattern first.
+ */
+public final class TorchController {
+    private static final String TAG = "TorchController";
+
+    // Alternating on/off durations in milliseconds; patterns repeat until stopped
+    private static final long[] STROBE = {100, 100};
+    private static final long[] SOS = {
+        200, 200, 200, 200, 200, 600,   // S
+        600, 200, 600, 200, 600, 600,   // O
+        200, 200, 200, 200, 200, 1400,  // S, then a pause between words
+    };
+
+    private static TorchController sInstance;
+
+    private final CameraManager mCameraManager;
+    private final Handler mHandler;
+
+    private String mCameraId;
+    private boolean mInitialized;
+    // Null until the torch callback or one of our own requests has told us
+    private volatile Boolean mTorchOn;
+
+    // Running pattern, or null
+    private long[] mPattern;
+    private int mStep;
+
+    private final Runnable mPatternStep = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (TorchController.this) {
+                if (mPattern == null) {
+                    return;
+                }
+                try {
+                    setTorchModeLocked((mStep & 1) == 0);
+                } catch (CameraAccessException e) {
+                    Log.w(TAG, "Stopping pattern: " + e.getMessage());
+                    mPattern = null;
+                    return;
+                }
+                long delay = mPattern[mStep];
+                mStep = (mStep + 1) % mPattern.length;
+                mHandler.postDelayed(this, delay);
+            }
+        }
+    };
+
+    private final CameraManager.TorchCallback mTorchCallback = new CameraManager.TorchCallback() {
+        @Override
+        public void onTorchModeChanged(String cameraId, boolean enabled) {
+            if (cameraId.equals(mCameraId)) {
+                mTorchOn = enabled;
+            }
+        }
+
+        @Override
+        public void onTorchModeUnavailable(String cameraId) {
+            // Another app opened the camera, which turns the torch off
+            if (cameraId.equals(mCameraId)) {
+                mTorchOn = false;
+                stopPattern();
+            }
+        }
+    };
+
+    private TorchController(CameraManager cameraManager) {
+        mCameraManager = cameraManager;
+        HandlerThread thread = new HandlerThread(TAG);
+        thread.start();
+        mHandler = new Handler(thread.getLooper());
+    }
+
+    public static synchronized TorchController get(Context context) {
+        if (sInstance == null) {
+            sInstance = new TorchController(SystemServices.get(context).getCameraManager());
+        }
+        return sInstance;
+    }
+
+    /** Whether the device has a camera with a flash unit. */
+    public synchronized boolean hasFlash() throws CameraAccessException {
+        ensureInitializedLocked();
+        return mCameraId != null;
+    }
+
+    /** Whether the torch is on; false while its state isn't known yet. */
+    public boolean isTorchOn() {
+        return Boolean.TRUE.equals(mTorchOn);
+    }
+
+    /**
+     * Turns the torch steadily on or off, stopping any pattern.
+     *
+     * @return false if the torch was already in that state and nothing was done
+     */
+    public synchronized boolean setTorch(boolean on) throws CameraAccessException {
+        ensureInitializedLocked();
+        boolean wasPattern = mPattern != null;
+        cancelPatternLocked();
+        if (mCameraId == null) {
+            return false;
+        }
+        if (isState(on)) {
+            return wasPattern;
+        }
+        setTorchModeLocked(on);
+        return true;
+    }
+
+    /** Flashes the torch rapidly until turned off. */
+    public void startStrobe() throws CameraAccessException {
+        startPattern(STROBE);
+    }
+
+    /** Flashes SOS in Morse code until turned off. */
+    public void startSos() throws CameraAccessException {
+        startPattern(SOS);
+    }
+
+    public synchronized void stopPattern() {
+        if (mPattern != null) {
+            cancelPatternLocked();
+            try {
+                setTorchModeLocked(false);
+            } catch (CameraAccessException e) {
+                Log.w(TAG, "Could not turn torch off: " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void startPattern(long[] pattern) throws CameraAccessException {
+        ensureInitializedLocked();
+        if (mCameraId == null) {
+            return;
+        }
+        cancelPatternLocked();
+        mPattern = pattern;
+        mStep = 0;
+        mHandler.post(mPatternStep);
+    }
+
+    private void cancelPatternLocked() {
+        mPattern = null;
+        mHandler.removeCallbacks(mPatternStep);
+    }
+
+    private boolean isState(boolean on) {
+        Boolean torchOn = mTorchOn;
+        return torchOn != null && torchOn == on;
+    }
+
+    // Skips the binder call when the torch is known to be in the requested state
+    private void setTorchModeLocked(boolean on) throws CameraAccessException {
+        if (!isState(on)) {
+            mCameraManager.setTorchMode(mCameraId, on);
+            mTorchOn = on;
+        }
+    }
+
+    // Finds the flash camera once; a failed lookup is retried on the next request
+    private void ensureInitializedLocked() throws CameraAccessException {
+        if (mInitialized) {
+            return;
+        }
+        String fallback = null;
+        for (String id : mCameraManager.getCameraIdList()) {
+            CameraCharacteristics characteristics = mCameraManager.getCameraCharacteristics(id);
+            if (!Boolean.TRUE.equals(characteristics.get(CameraCharacteristics.FLASH_INFO_AVAILABLE))) {
+                continue;
+            }
+            Integer facing = characteristics.get(CameraCharacteristics.LENS_FACING);
+            if (facing != null && facing == CameraCharacteristics.LENS_FACING_BACK) {
+                mCameraId = id;
+                break;
+            }
+            if (fallback == null) {
+                fallback = id;
+            }
+        }
+        if (mCameraId == null) {
+            mCameraId = fallback;
+        }
+        mInitialized = true;
+        Log.d(TAG, "Flash camera: " + mCameraId);
+
+        if (mCameraId != null) {
+            mCameraManager.registerTorchCallback(mTorchCallback, mHandler);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.buddy.assistant;
 
 import android.content.Context;
 import android.content.Intent;
+import android.os.Bundle;
 import android.speech.RecognitionListener;
 import android.speech.RecognizerIntent;
 import android.speech.SpeechRecognizer;
@@ -15,16 +16,29 @@ public class VoiceRecognitionHelper {
     private SpeechRecognizer mSpeechRecognizer;
     private VoiceRecognitionCallback mCallback;
     private Context mContext;
+    private IncrementalClassifier mPartialClassifier;
     
     public interface VoiceRecognitionCallback {
         void onVoiceResult(String spokenText);
         void onVoiceError(String error);
         void onVoiceStart();
         void onVoiceEnd();
+        
+        /**
+         * Called at most once per utterance, before {@link #onVoiceResult}, when the partial
+         * transcript already identifies a command that needs no parameters.
+         */
+        default void onVoiceIntent(AICommandProcessor.CommandResult result) {}
     }
     
     public VoiceRecognitionHelper(Context context) {
         mContext = context;
+        mPartialClassifier = new IncrementalClassifier(Locale.getDefault());
+    }
+    
+    /** The intent already delivered through onVoiceIntent for the current utterance, or null. */
+    public CommandIntent getEarlyIntent() {
+        return mPartialClassifier.getStableIntent();
     }
     
     public void setCallback(VoiceRecognitionCallback callback) {
@@ -104,7 +118,17 @@ public class VoiceRecognitionHelper {
                 
                 @Override
                 public void onPartialResults(Bundle partialResults) {
-                    // Partial results
+                    ArrayList<String> matches = partialResults.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+                    if (matches == null || matches.isEmpty()) {
+                        return;
+                    }
+                    AICommandProcessor.CommandResult result = mPartialClassifier.update(matches.get(0));
+                    if (result != null) {
+                        Log.d(TAG, "Early intent: " + result.intent);
+                        if (mCallback != null) {
+                            mCallback.onVoiceIntent(result);
+                        }
+                    }
                 }
                 
                 @Override
@@ -121,6 +145,7 @@ public class VoiceRecognitionHelper {
         intent.putExtra(RecognizerIntent.EXTRA_MAX_RESULTS, 1);
         intent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
         
+        mPartialClassifier.reset();
         mSpeechRecognizer.startListening(intent);
     }
     
@@ -0,0 +1,333 @@
+package com.buddy.assistant;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays recorded commands through {@link CommandEngine} on the host, against
+ * {@link SimulatedHandlerFactory simulated handlers}, and reports throughput, latency
+ * percentiles and the commands whose outcome (kind, intent or routine, and slots) differs
+ * from the recording.
+ *
+ * The input is either a {@link CommandHistoryLog} pulled from a device or a text file
+ * with one command per line, optionally preceded by its time in milliseconds and a tab.
+ * By default each command is sent once the previous one has completed, as fast as
+ * possible; with {@code --speed} they are sent at the recorded pace and may queue up
+ * behind each other, as they would on the device.
+ *
+ * Exits with status 1 when any outcome differs, so it can gate a build.
+ */
+public final class CommandReplay {
+
+    private static final String USAGE = String.join("\n",
+            "usage: buddy-replay [options] <history dir | trace file>",
+            "  --speed F       send commands at F times the recorded pace (default: as fast as possible)",
+            "  --repeat N      replay the trace N times (default 1)",
+            "  --state DIR     start from the priors and routines saved in DIR, e.g. a copy of the app's files dir",
+            "  --latency MS    time each simulated action takes to take effect (default 0)",
+            "  --show-diffs N  list up to N commands whose outcome differs (default 10)");
+
+    // One command of the trace
+    private static final class Item {
+        final long timeMillis;
+        final String utterance;
+        // Null when the trace has no outcomes
+        final String recorded;
+
+        Item(long timeMillis, String utterance, String recorded) {
+            this.timeMillis = timeMillis;
+            this.utterance = utterance;
+            this.recorded = recorded;
+        }
+    }
+
+    private double mSpeed;
+    private int mRepeat = 1;
+    private File mState;
+    private long mLatencyMs;
+    private int mShowDiffs = 10;
+    private File mInput;
+
+    private CommandReplay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandReplay replay = new CommandReplay();
+        try {
+            replay.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        System.exit(replay.run() ? 0 : 1);
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                if (mInput != null) {
+                    throw new IllegalArgumentException("More than one input: " + arg);
+                }
+                mInput = new File(arg);
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            try {
+                switch (arg) {
+                    case "--speed":
+                        mSpeed = Double.parseDouble(value);
+                        break;
+                    case "--repeat":
+                        mRepeat = Integer.parseInt(value);
+                        break;
+                    case "--state":
+                        mState = new File(value);
+                        break;
+                    case "--latency":
+                        mLatencyMs = Long.parseLong(value);
+                        break;
+                    case "--show-diffs":
+                        mShowDiffs = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + arg + " " + value);
+            }
+        }
+        if (mInput == null) {
+            throw new IllegalArgumentException("No input");
+        }
+        if (mSpeed < 0 || mRepeat < 1 || mLatencyMs < 0) {
+            throw new IllegalArgumentException("Out of range");
+        }
+    }
+
+    private boolean run() throws Exception {
+        List<Item> trace = mInput.isDirectory() ? readHistory(mInput) : readTraceFile(mInput);
+        if (trace.isEmpty()) {
+            System.err.println("Nothing to replay in " + mInput);
+            return true;
+        }
+
+        // Priors and routines change as commands run, so work on a copy
+        File stateDir = Files.createTempDirectory("buddy-replay").toFile();
+        stateDir.deleteOnExit();
+        if (mState != null) {
+            for (String name : new String[] {IntentPriors.FILE_NAME, RoutineStore.FILE_NAME}) {
+                File file = new File(mState, name);
+                if (file.isFile()) {
+                    Files.copy(file.toPath(), new File(stateDir, name).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        SimulatedDeviceHal hal = new SimulatedDeviceHal(0);
+        for (SimulatedDeviceHal.Capability capability : SimulatedDeviceHal.Capability.values()) {
+            hal.setSettleLatency(capability, mLatencyMs);
+        }
+        HostCommandRunner runner = new HostCommandRunner(
+                new IntentDispatcher(new SimulatedHandlerFactory(hal, mLatencyMs)));
+        CommandEngine engine = new CommandEngine(runner, IntentPriors.getInstance(stateDir),
+                RoutineStore.getInstance(stateDir), null, (command, lowerCommand) -> "❌ Not understood");
+
+        int count = trace.size() * mRepeat;
+        long[] classifyNanos = new long[count];
+        long[] executeNanos = new long[count];
+        long[] totalNanos = new long[count];
+        String[] outcomes = new String[count];
+        CountDownLatch done = new CountDownLatch(count);
+
+        long start = System.nanoTime();
+        long firstMillis = trace.get(0).timeMillis;
+        long traceMillis = trace.get(trace.size() - 1).timeMillis - firstMillis;
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            final Item item = trace.get(i % trace.size());
+            if (mSpeed > 0) {
+                // Each lap starts a second after the previous one's last command
+                long lap = i / trace.size();
+                long dueNanos = start + (long) (TimeUnit.MILLISECONDS.toNanos(
+                        lap * (traceMillis + 1000) + item.timeMillis - firstMillis) / mSpeed);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+            }
+            final long submitted = System.nanoTime();
+            final CompletableFuture<String> response = new CompletableFuture<>();
+            runner.execute(() -> {
+                long classifyStart = System.nanoTime();
+                long executeStart = classifyStart;
+                CompletableFuture<String> future;
+                try {
+                    CommandEngine.Prepared prepared = engine.prepare(item.utterance, submitted);
+                    executeStart = System.nanoTime();
+                    classifyNanos[index] = executeStart - classifyStart;
+                    outcomes[index] = outcomeOf(prepared);
+                    future = engine.execute(prepared);
+                } catch (RuntimeException e) {
+                    // Counted as a difference, since outcomes[index] isn't what was recorded
+                    e.printStackTrace();
+                    outcomes[index] = "ERROR " + e;
+                    future = CompletableFuture.completedFuture("❌ " + e.getMessage());
+                }
+                final long executeStarted = executeStart;
+                future.whenComplete((text, error) -> {
+                    long end = System.nanoTime();
+                    executeNanos[index] = end - executeStarted;
+                    totalNanos[index] = end - submitted;
+                    done.countDown();
+                    response.complete(text);
+                });
+            });
+            if (mSpeed == 0) {
+                response.join();
+            }
+        }
+        done.await();
+        long elapsedNanos = System.nanoTime() - start;
+        runner.shutdown();
+
+        report(trace, count, elapsedNanos, classifyNanos, executeNanos, totalNanos, outcomes);
+        return countDiffs(trace, outcomes) == 0;
+    }
+
+    private void report(List<Item> trace, int count, long elapsedNanos, long[] classifyNanos,
+            long[] executeNanos, long[] totalNanos, String[] outcomes) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println(String.format(Locale.ROOT, "Replayed %d commands from %s in %.2f s: %.0f commands/s, %s",
+                count, mInput, seconds, count / seconds,
+                mSpeed > 0 ? "at " + mSpeed + "x the recorded pace" : "as fast as possible"));
+        System.out.println(String.format(Locale.ROOT, "  %-9s %9s %9s %9s %9s", "", "p50", "p90", "p99", "max"));
+        printPercentiles("classify", classifyNanos);
+        printPercentiles("execute", executeNanos);
+        printPercentiles("total", totalNanos);
+
+        boolean recorded = trace.get(0).recorded != null;
+        if (!recorded) {
+            System.out.println("Outcomes: not in the trace, nothing to compare");
+            return;
+        }
+        int diffs = countDiffs(trace, outcomes);
+        System.out.println(String.format(Locale.ROOT, "Outcomes: %d same, %d differ (%.2f%%)",
+                count - diffs, diffs, 100.0 * diffs / count));
+
+        // Group by what changed, most frequent first, with the first command of each
+        Map<String, List<String>> changes = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            Item item = trace.get(i % trace.size());
+            if (!item.recorded.equals(outcomes[i])) {
+                changes.computeIfAbsent(item.recorded + " -> " + outcomes[i], k -> new ArrayList<>()).add(item.utterance);
+            }
+        }
+        List<Map.Entry<String, List<String>>> sorted = new ArrayList<>(changes.entrySet());
+        sorted.sort((a, b) -> b.getValue().size() - a.getValue().size());
+        for (Map.Entry<String, List<String>> change : sorted.subList(0, Math.min(mShowDiffs, sorted.size()))) {
+            System.out.println(String.format(Locale.ROOT, "  %6d  %s, e.g. \"%s\"",
+                    change.getValue().size(), change.getKey(), change.getValue().get(0)));
+        }
+    }
+
+    private static int countDiffs(List<Item> trace, String[] outcomes) {
+        int diffs = 0;
+        for (int i = 0; i < outcomes.length; i++) {
+            String recorded = trace.get(i % trace.size()).recorded;
+            if (recorded != null && !recorded.equals(outcomes[i])) {
+                diffs++;
+            }
+        }
+        return diffs;
+    }
+
+    private static void printPercentiles(String stage, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.println(String.format(Locale.ROOT, "  %-9s %9s %9s %9s %9s", stage,
+                formatNanos(percentile(sorted, 0.5)), formatNanos(percentile(sorted, 0.9)),
+                formatNanos(percentile(sorted, 0.99)), formatNanos(sorted[sorted.length - 1])));
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1000000) {
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        }
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+    }
+
+    // The same format for recorded and replayed commands, so they compare as strings
+    private static String outcome(CommandHistoryLog.Kind kind, String name, Map<String, String> slots) {
+        return slots.isEmpty() ? kind + " " + name : kind + " " + name + " " + new TreeMap<>(slots);
+    }
+
+    private static String outcomeOf(CommandEngine.Prepared prepared) {
+        if (prepared.routine != null) {
+            return outcome(CommandHistoryLog.Kind.ROUTINE, prepared.routine.getName(), Collections.emptyMap());
+        }
+        AICommandProcessor.CommandResult result = prepared.result;
+        return outcome(prepared.isConfident() ? CommandHistoryLog.Kind.INTENT : CommandHistoryLog.Kind.FALLBACK,
+                result.intent.name(), result.parameters != null ? result.parameters : Collections.emptyMap());
+    }
+
+    private static List<Item> readHistory(File dir) throws IOException {
+        List<Item> trace = new ArrayList<>();
+        int[] skipped = {0};
+        CommandHistoryLog.read(dir, entry -> {
+            // Commands classified from partial speech have no utterance to replay
+            if (entry.utterance.isEmpty()) {
+                skipped[0]++;
+                return;
+            }
+            trace.add(new Item(entry.timeMillis, entry.utterance, outcome(entry.kind, entry.name, entry.slots)));
+        });
+        if (skipped[0] > 0) {
+            System.err.println("Skipped " + skipped[0] + " commands without an utterance");
+        }
+        return trace;
+    }
+
+    private static List<Item> readTraceFile(File file) throws IOException {
+        List<Item> trace = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            long timeMillis = 0;
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                try {
+                    timeMillis = Long.parseLong(line.substring(0, tab).trim());
+                    line = line.substring(tab + 1);
+                } catch (NumberFormatException e) {
+                    // Not a time, so part of the command
+                }
+            }
+            trace.add(new Item(timeMillis, line.trim(), null));
+        }
+        return trace;
+    }
+}
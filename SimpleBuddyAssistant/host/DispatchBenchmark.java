@@ -0,0 +1,422 @@
+package com.buddy.assistant;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Dispatches every intent through {@link IntentDispatcher} on the host and reports, per
+ * intent, the first (cold) call, warm p50 and p99 latency, bytes allocated and
+ * {@link DeviceHal} calls per command. Hardware and settings intents run their real
+ * handlers against a {@link SimulatedDeviceHal} with no latency, so what is measured is
+ * the handler's own overhead.
+ *
+ * Handlers that need the main thread are handed over to a thread standing in for it and
+ * waited for, as {@link CommandExecutor} does on the device. An intent is flagged when
+ * its warm p50 is over the dispatch budget, or when it writes through the HAL on the
+ * main thread; writes that have to be made there are only noted. Results can be saved as a
+ * baseline and later runs compared against it. {@code --stress} instead classifies long
+ * adversarial inputs, to catch matching that grows with the input.
+ *
+ * Exits with status 1 when anything is flagged or regressed.
+ */
+public final class DispatchBenchmark {
+
+    private static final String USAGE = String.join("\n",
+            "usage: buddy-bench [options]",
+            "  --iterations N         warm calls per intent (default 2000)",
+            "  --budget-us N          warm p50 dispatch budget per intent (default 1000)",
+            "  --save FILE            write the results as a baseline",
+            "  --baseline FILE        compare with a saved baseline",
+            "  --tolerance F          allowed slowdown against the baseline, 0.5 = 50% (default 0.5)",
+            "  --stress               classify long adversarial inputs instead",
+            "  --stress-budget-ms N   worst-case classification budget in stress mode (default 50)");
+
+    private static final String BASELINE_HEADER = "# buddy-bench baseline: intent, warm p50 ns, bytes per command";
+    // Differences below these are noise rather than regressions
+    private static final long MIN_REGRESSION_NANOS = 20000;
+    private static final long MIN_REGRESSION_BYTES = 64;
+    private static final int WARMUP_ITERATIONS = 500;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final ExecutorService MAIN = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "main");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Thread MAIN_THREAD = CompletableFuture.supplyAsync(Thread::currentThread, MAIN).join();
+
+    private static final class Result {
+        final CommandIntent intent;
+        final boolean real;
+        long coldNanos;
+        long p50Nanos;
+        long p99Nanos;
+        long bytesPerCommand;
+        double halCallsPerCommand;
+        boolean mainThreadIo;
+        boolean requiredMainThreadIo;
+
+        Result(CommandIntent intent, boolean real) {
+            this.intent = intent;
+            this.real = real;
+        }
+    }
+
+    private int mIterations = 2000;
+    private long mBudgetNanos = 1000000;
+    private File mSave;
+    private File mBaseline;
+    private double mTolerance = 0.5;
+    private boolean mStress;
+    private long mStressBudgetNanos = 50000000;
+
+    private DispatchBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        DispatchBenchmark benchmark = new DispatchBenchmark();
+        try {
+            benchmark.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        boolean passed = benchmark.mStress ? benchmark.runStress() : benchmark.runDispatch();
+        System.exit(passed ? 0 : 1);
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--stress")) {
+                mStress = true;
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            try {
+                switch (arg) {
+                    case "--iterations":
+                        mIterations = Integer.parseInt(value);
+                        break;
+                    case "--budget-us":
+                        mBudgetNanos = Long.parseLong(value) * 1000;
+                        break;
+                    case "--save":
+                        mSave = new File(value);
+                        break;
+                    case "--baseline":
+                        mBaseline = new File(value);
+                        break;
+                    case "--tolerance":
+                        mTolerance = Double.parseDouble(value);
+                        break;
+                    case "--stress-budget-ms":
+                        mStressBudgetNanos = Long.parseLong(value) * 1000000;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + arg + " " + value);
+            }
+        }
+        if (mIterations < 1 || mTolerance < 0) {
+            throw new IllegalArgumentException("Out of range");
+        }
+    }
+
+    private boolean runDispatch() throws IOException {
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM can't count allocations; bytes per command will be 0");
+        }
+        SimulatedDeviceHal hal = new SimulatedDeviceHal(0).setMainThread(MAIN_THREAD);
+        IntentDispatcher dispatcher = new IntentDispatcher(new SimulatedHandlerFactory(hal, 0));
+
+        List<Result> results = new ArrayList<>();
+        for (CommandIntent intent : CommandIntent.values()) {
+            CommandIntent.Group group = intent.getGroup();
+            if (group != null) {
+                results.add(new Result(intent, isReal(group)));
+            }
+        }
+
+        // Cold: each intent's first call, which creates its handler and loads its classes
+        for (Result result : results) {
+            long start = System.nanoTime();
+            dispatch(dispatcher, result.intent);
+            result.coldNanos = System.nanoTime() - start;
+        }
+
+        long[] samples = new long[mIterations];
+        long allocationOverhead = measureAllocationOverhead();
+        for (Result result : results) {
+            CommandIntent opposite = oppositeOf(result.intent);
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                dispatch(dispatcher, opposite);
+                dispatch(dispatcher, result.intent);
+            }
+
+            long halCalls = 0;
+            long mainThreadWrites = 0;
+            long requiredMainThreadWrites = 0;
+            long bytes = 0;
+            for (int i = 0; i < mIterations; i++) {
+                // Undo the last call, so toggles act every time rather than finding nothing to do
+                dispatch(dispatcher, opposite);
+                long calls = totalHalCalls(hal);
+                long writes = hal.getMainThreadWriteCount();
+                long requiredWrites = hal.getRequiredMainThreadWriteCount();
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                dispatch(dispatcher, result.intent);
+                samples[i] = System.nanoTime() - start;
+                bytes += allocatedBytes() - allocated - allocationOverhead;
+                halCalls += totalHalCalls(hal) - calls;
+                mainThreadWrites += hal.getMainThreadWriteCount() - writes;
+                requiredMainThreadWrites += hal.getRequiredMainThreadWriteCount() - requiredWrites;
+            }
+            Arrays.sort(samples);
+            result.p50Nanos = samples[(mIterations - 1) / 2];
+            result.p99Nanos = samples[(int) Math.ceil(mIterations * 0.99) - 1];
+            result.bytesPerCommand = Math.max(0, bytes / mIterations);
+            result.halCallsPerCommand = (double) halCalls / mIterations;
+            result.mainThreadIo = mainThreadWrites > 0;
+            result.requiredMainThreadIo = requiredMainThreadWrites > 0;
+        }
+
+        boolean passed = report(results);
+        if (mBaseline != null) {
+            passed &= compare(results, readBaseline(mBaseline));
+        }
+        if (mSave != null) {
+            writeBaseline(results, mSave);
+            System.out.println("Saved baseline to " + mSave);
+        }
+        return passed;
+    }
+
+    private static void dispatch(IntentDispatcher dispatcher, CommandIntent intent) {
+        // A fresh map each time, as the classifier makes one per command
+        AICommandProcessor.CommandResult result = new AICommandProcessor.CommandResult(intent, new HashMap<>(), 1f);
+        if (dispatcher.needsMainThread(intent)) {
+            CompletableFuture.supplyAsync(() -> dispatcher.dispatchAsync(result), MAIN).join().join();
+        } else {
+            dispatcher.dispatchAsync(result).join();
+        }
+    }
+
+    // Includes the main thread, for handlers handed over to it
+    private static long allocatedBytes() {
+        return THREADS.getCurrentThreadAllocatedBytes() + THREADS.getThreadAllocatedBytes(MAIN_THREAD.getId());
+    }
+
+    // What reading the allocation counter itself allocates, if anything
+    private static long measureAllocationOverhead() {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long allocated = allocatedBytes();
+            min = Math.min(min, allocatedBytes() - allocated);
+        }
+        return min;
+    }
+
+    private static long totalHalCalls(SimulatedDeviceHal hal) {
+        long calls = 0;
+        for (SimulatedDeviceHal.Capability capability : SimulatedDeviceHal.Capability.values()) {
+            calls += hal.getCallCount(capability);
+        }
+        return calls;
+    }
+
+    private static boolean isReal(CommandIntent.Group group) {
+        switch (group) {
+            case CONNECTIVITY:
+            case CAMERA:
+            case AUDIO:
+            case DISPLAY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // The intent that undoes this one, e.g. WIFI_OFF for WIFI_ON, or the intent itself
+    private static CommandIntent oppositeOf(CommandIntent intent) {
+        String name = intent.name();
+        String opposite;
+        if (name.endsWith("_ON")) {
+            opposite = name.substring(0, name.length() - 3) + "_OFF";
+        } else if (name.endsWith("_OFF")) {
+            opposite = name.substring(0, name.length() - 4) + "_ON";
+        } else if (name.endsWith("_UP")) {
+            opposite = name.substring(0, name.length() - 3) + "_DOWN";
+        } else if (name.endsWith("_DOWN")) {
+            opposite = name.substring(0, name.length() - 5) + "_UP";
+        } else if (name.startsWith("SOUND_")) {
+            opposite = intent == CommandIntent.SOUND_RING ? "SOUND_SILENT" : "SOUND_RING";
+        } else {
+            return intent;
+        }
+        try {
+            return CommandIntent.valueOf(opposite);
+        } catch (IllegalArgumentException e) {
+            return intent;
+        }
+    }
+
+    private boolean report(List<Result> results) {
+        int real = 0;
+        for (Result result : results) {
+            real += result.real ? 1 : 0;
+        }
+        System.out.println(String.format(Locale.ROOT,
+                "Dispatch of %d intents, %d warm calls each; %d real handlers, %d stubs",
+                results.size(), mIterations, real, results.size() - real));
+        System.out.println(String.format(Locale.ROOT, "  %-22s %-13s %9s %9s %9s %7s %5s  %s",
+                "intent", "group", "cold", "p50", "p99", "bytes", "hal", "flags"));
+
+        int slow = 0;
+        int mainThreadIo = 0;
+        for (Result result : results) {
+            List<String> flags = new ArrayList<>();
+            if (!result.real) {
+                flags.add("stub");
+            }
+            if (result.p50Nanos > mBudgetNanos) {
+                flags.add("OVER BUDGET");
+                slow++;
+            }
+            if (result.mainThreadIo) {
+                flags.add("MAIN THREAD I/O");
+                mainThreadIo++;
+            } else if (result.requiredMainThreadIo) {
+                flags.add("main thread, required");
+            }
+            System.out.println(String.format(Locale.ROOT, "  %-22s %-13s %9s %9s %9s %7d %5.1f  %s",
+                    result.intent, result.intent.getGroup(), formatNanos(result.coldNanos),
+                    formatNanos(result.p50Nanos), formatNanos(result.p99Nanos), result.bytesPerCommand,
+                    result.halCallsPerCommand, String.join(", ", flags)));
+        }
+        System.out.println(String.format(Locale.ROOT, "Over the %s budget: %d; main-thread I/O: %d",
+                formatNanos(mBudgetNanos), slow, mainThreadIo));
+        return slow == 0 && mainThreadIo == 0;
+    }
+
+    private boolean compare(List<Result> results, Map<String, long[]> baseline) {
+        int regressions = 0;
+        for (Result result : results) {
+            long[] before = baseline.get(result.intent.name());
+            if (before == null) {
+                continue;
+            }
+            long slower = result.p50Nanos - (long) (before[0] * (1 + mTolerance));
+            long bigger = result.bytesPerCommand - before[1];
+            if (slower > MIN_REGRESSION_NANOS || bigger > MIN_REGRESSION_BYTES) {
+                System.out.println(String.format(Locale.ROOT, "  REGRESSED %-22s p50 %s -> %s, %d -> %d bytes",
+                        result.intent, formatNanos(before[0]), formatNanos(result.p50Nanos),
+                        before[1], result.bytesPerCommand));
+                regressions++;
+            }
+        }
+        System.out.println("Regressions against " + mBaseline + ": " + regressions);
+        return regressions == 0;
+    }
+
+    private static Map<String, long[]> readBaseline(File file) throws IOException {
+        Map<String, long[]> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (line.startsWith("#") || line.trim().isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            baseline.put(fields[0], new long[] {Long.parseLong(fields[1]), Long.parseLong(fields[2])});
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(List<Result> results, File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            writer.println(BASELINE_HEADER);
+            for (Result result : results) {
+                writer.println(result.intent + "\t" + result.p50Nanos + "\t" + result.bytesPerCommand);
+            }
+        }
+    }
+
+    // Long inputs of repeated, misspaced and nonsense words, where matching cost could blow up
+    private boolean runStress() {
+        Random random = new Random(1);
+        String[] vocabulary = {"turn", "on", "off", "bluetooth", "send", "message", "the", "a", "flashlight",
+                "note", "volume", "123", "%", "to", "zzzzzzzzzzzzzzzzzzzzzzzzzzzzzzz"};
+        List<String> inputs = new ArrayList<>();
+        inputs.add(repeat("x", 10000));
+        inputs.add(repeat("7", 10000));
+        inputs.add("send a message to mom saying " + repeat("i will be late ", 700));
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            builder.setLength(0);
+            while (builder.length() < 10000) {
+                builder.append(vocabulary[random.nextInt(vocabulary.length)])
+                        .append(random.nextInt(3) == 0 ? " " : "  ");
+            }
+            inputs.add(builder.toString());
+        }
+
+        for (int pass = 0; pass < 3; pass++) {
+            for (String input : inputs) {
+                AICommandProcessor.processCommand(input, Locale.ENGLISH);
+            }
+        }
+        long total = 0;
+        long max = 0;
+        for (String input : inputs) {
+            long start = System.nanoTime();
+            AICommandProcessor.processCommand(input, Locale.ENGLISH);
+            long elapsed = System.nanoTime() - start;
+            total += elapsed;
+            max = Math.max(max, elapsed);
+        }
+        System.out.println(String.format(Locale.ROOT, "Classified %d inputs of about 10k characters: mean %s, max %s",
+                inputs.size(), formatNanos(total / inputs.size()), formatNanos(max)));
+        if (max > mStressBudgetNanos) {
+            System.out.println("Over the " + formatNanos(mStressBudgetNanos) + " budget");
+            return false;
+        }
+        return true;
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1000000) {
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        }
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+    }
+}
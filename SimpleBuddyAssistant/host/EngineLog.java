@@ -0,0 +1,36 @@
+package com.buddy.assistant;
+
+/**
+ * Host version of the engine's logging. Warnings and errors go to stderr; debug and info
+ * messages only when the {@code buddy.verbose} system property is set, so benchmarks
+ * aren't slowed down by them.
+ */
+final class EngineLog {
+    private static final boolean VERBOSE = Boolean.getBoolean("buddy.verbose");
+
+    private EngineLog() {
+    }
+
+    static void d(String tag, String msg) {
+        if (VERBOSE) {
+            System.err.println("D/" + tag + ": " + msg);
+        }
+    }
+
+    static void i(String tag, String msg) {
+        if (VERBOSE) {
+            System.err.println("I/" + tag + ": " + msg);
+        }
+    }
+
+    static void w(String tag, String msg) {
+        System.err.println("W/" + tag + ": " + msg);
+    }
+
+    static void e(String tag, String msg, Throwable tr) {
+        System.err.println("E/" + tag + ": " + msg);
+        if (tr != null) {
+            tr.printStackTrace();
+        }
+    }
+}
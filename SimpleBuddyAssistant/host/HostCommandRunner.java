@@ -0,0 +1,39 @@
+package com.buddy.assistant;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Host version of {@link CommandExecutor}: runs tasks on one thread, in order, and
+ * dispatches commands on it. There is no main thread on the host, so handlers that would
+ * need one are called on the runner's thread too.
+ */
+final class HostCommandRunner implements CommandRunner {
+    private static final String TAG = "HostCommandRunner";
+
+    private final IntentDispatcher mDispatcher;
+    private final ExecutorService mThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, TAG);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    HostCommandRunner(IntentDispatcher dispatcher) {
+        mDispatcher = dispatcher;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        mThread.execute(task);
+    }
+
+    @Override
+    public CompletableFuture<String> dispatch(AICommandProcessor.CommandResult result) {
+        return mDispatcher.dispatchAsync(result);
+    }
+
+    void shutdown() {
+        mThread.shutdown();
+    }
+}
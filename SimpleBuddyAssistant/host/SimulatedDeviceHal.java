@@ -0,0 +1,383 @@
+package com.buddy.assistant;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A {@link DeviceHal} that keeps the device's state in memory, for running handlers on
+ * the host.
+ *
+ * Each capability can be given a call latency, which every write blocks for like a
+ * binder call; a settle latency, after which a change becomes visible like a radio
+ * coming up; and a failure rate, the fraction of writes that throw. Reads cost nothing,
+ * as they are served from a cache on the device too. Failures are drawn from a seeded
+ * {@link Random}, so a run can be repeated exactly. Writes made on the thread set as the
+ * main thread are counted, to catch I/O that would block the UI on the device; those the
+ * HAL says must be made there, like Bluetooth's enable request, are counted apart.
+ */
+public final class SimulatedDeviceHal implements DeviceHal {
+
+    /** The capabilities whose behavior can be configured. */
+    public enum Capability {
+        AUDIO, TORCH, WIFI, BLUETOOTH, SETTINGS, SCREENS
+    }
+
+    private static final int CAPABILITIES = Capability.values().length;
+
+    private final Random mRandom;
+    private final long[] mCallLatencyNanos = new long[CAPABILITIES];
+    private final long[] mSettleMs = new long[CAPABILITIES];
+    private final double[] mFailureRate = new double[CAPABILITIES];
+    private final boolean[] mAvailable = {true, true, true, true, true, true};
+    private final AtomicLongArray mCalls = new AtomicLongArray(CAPABILITIES);
+    private final AtomicLong mMainThreadWrites = new AtomicLong();
+    private final AtomicLong mRequiredMainThreadWrites = new AtomicLong();
+    private volatile Thread mMainThread;
+
+    private final CopyOnWriteArrayList<Runnable> mListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService mTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "SimulatedDeviceHal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Device state, by Stream, Setting and so on; guarded by this
+    private final int[] mVolumes = {8, 5, 5};
+    private final int[] mMaxVolumes = {15, 7, 7};
+    private final int[] mSettings = {128, 0, 1};
+    private RingerMode mRingerMode = RingerMode.NORMAL;
+    private boolean mTorchOn;
+    private RadioState mWifiState = RadioState.OFF;
+    private RadioState mBluetoothState = RadioState.OFF;
+
+    private final Audio mAudio = new Audio() {
+        @Override
+        public int getVolume(Stream stream) {
+            read(Capability.AUDIO);
+            synchronized (SimulatedDeviceHal.this) {
+                return mVolumes[stream.ordinal()];
+            }
+        }
+
+        @Override
+        public int getMaxVolume(Stream stream) {
+            read(Capability.AUDIO);
+            return mMaxVolumes[stream.ordinal()];
+        }
+
+        @Override
+        public void setVolume(Stream stream, int volume) {
+            write(Capability.AUDIO);
+            settle(Capability.AUDIO, () -> mVolumes[stream.ordinal()] = volume);
+        }
+
+        @Override
+        public RingerMode getRingerMode() {
+            read(Capability.AUDIO);
+            synchronized (SimulatedDeviceHal.this) {
+                return mRingerMode;
+            }
+        }
+
+        @Override
+        public void setRingerMode(RingerMode mode) {
+            write(Capability.AUDIO);
+            settle(Capability.AUDIO, () -> mRingerMode = mode);
+        }
+    };
+
+    private final Torch mTorch = new Torch() {
+        @Override
+        public boolean hasFlash() {
+            read(Capability.TORCH);
+            return mAvailable[Capability.TORCH.ordinal()];
+        }
+
+        @Override
+        public boolean isOn() {
+            read(Capability.TORCH);
+            synchronized (SimulatedDeviceHal.this) {
+                return mTorchOn;
+            }
+        }
+
+        @Override
+        public boolean setOn(boolean on) {
+            write(Capability.TORCH);
+            synchronized (SimulatedDeviceHal.this) {
+                if (mTorchOn == on) {
+                    return false;
+                }
+            }
+            settle(Capability.TORCH, () -> mTorchOn = on);
+            return true;
+        }
+
+        @Override
+        public void startStrobe() {
+            write(Capability.TORCH);
+        }
+
+        @Override
+        public void startSos() {
+            write(Capability.TORCH);
+        }
+    };
+
+    private final Wifi mWifi = new Wifi() {
+        @Override
+        public boolean isAvailable() {
+            read(Capability.WIFI);
+            return mAvailable[Capability.WIFI.ordinal()];
+        }
+
+        @Override
+        public RadioState getState() {
+            read(Capability.WIFI);
+            synchronized (SimulatedDeviceHal.this) {
+                return mWifiState;
+            }
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            write(Capability.WIFI);
+            change(() -> mWifiState = enabled ? RadioState.TURNING_ON : RadioState.TURNING_OFF);
+            settle(Capability.WIFI, () -> mWifiState = enabled ? RadioState.ON : RadioState.OFF);
+        }
+    };
+
+    private final Bluetooth mBluetooth = new Bluetooth() {
+        @Override
+        public boolean isAvailable() {
+            read(Capability.BLUETOOTH);
+            return mAvailable[Capability.BLUETOOTH.ordinal()];
+        }
+
+        @Override
+        public RadioState getState() {
+            read(Capability.BLUETOOTH);
+            synchronized (SimulatedDeviceHal.this) {
+                return mBluetoothState;
+            }
+        }
+
+        @Override
+        public void requestEnable() {
+            // As if the user accepted the system dialog at once
+            write(Capability.BLUETOOTH, requestEnableNeedsMainThread());
+            change(() -> mBluetoothState = RadioState.TURNING_ON);
+            settle(Capability.BLUETOOTH, () -> mBluetoothState = RadioState.ON);
+        }
+
+        @Override
+        public boolean requestEnableNeedsMainThread() {
+            // As on the device when the command comes from the activity
+            return true;
+        }
+
+        @Override
+        public void disable() {
+            write(Capability.BLUETOOTH);
+            change(() -> mBluetoothState = RadioState.TURNING_OFF);
+            settle(Capability.BLUETOOTH, () -> mBluetoothState = RadioState.OFF);
+        }
+    };
+
+    private final Settings mSettingsStore = new Settings() {
+        @Override
+        public int get(Setting setting) {
+            read(Capability.SETTINGS);
+            synchronized (SimulatedDeviceHal.this) {
+                return mSettings[setting.ordinal()];
+            }
+        }
+
+        @Override
+        public void put(Setting setting, int value) {
+            write(Capability.SETTINGS);
+            settle(Capability.SETTINGS, () -> mSettings[setting.ordinal()] = value);
+        }
+    };
+
+    private final Screens mScreens = new Screens() {
+        @Override
+        public boolean open(Screen screen) {
+            write(Capability.SCREENS);
+            return mAvailable[Capability.SCREENS.ordinal()];
+        }
+
+        @Override
+        public void prepare(Screen screen) {
+            read(Capability.SCREENS);
+        }
+
+        @Override
+        public void takeScreenshot() {
+            write(Capability.SCREENS);
+        }
+    };
+
+    /** @param seed seeds the choice of which writes fail */
+    public SimulatedDeviceHal(long seed) {
+        mRandom = new Random(seed);
+    }
+
+    /** Makes every write to {@code capability} block for {@code micros}. */
+    public SimulatedDeviceHal setCallLatency(Capability capability, long micros) {
+        mCallLatencyNanos[capability.ordinal()] = TimeUnit.MICROSECONDS.toNanos(micros);
+        return this;
+    }
+
+    /** Makes changes to {@code capability} visible only {@code ms} after the write. */
+    public SimulatedDeviceHal setSettleLatency(Capability capability, long ms) {
+        mSettleMs[capability.ordinal()] = ms;
+        return this;
+    }
+
+    /** Makes {@code rate}, from 0 to 1, of the writes to {@code capability} throw. */
+    public SimulatedDeviceHal setFailureRate(Capability capability, double rate) {
+        mFailureRate[capability.ordinal()] = rate;
+        return this;
+    }
+
+    /**
+     * Simulates a device without a flash, Wi-Fi or Bluetooth, or, for
+     * {@link Capability#SCREENS}, without apps to show screens.
+     */
+    public SimulatedDeviceHal setAvailable(Capability capability, boolean available) {
+        mAvailable[capability.ordinal()] = available;
+        return this;
+    }
+
+    /** Counts the writes made on {@code thread} from now on as main-thread I/O. */
+    public SimulatedDeviceHal setMainThread(Thread thread) {
+        mMainThread = thread;
+        return this;
+    }
+
+    /**
+     * The number of writes made on the thread given to {@link #setMainThread} so far,
+     * other than those that have to be made there.
+     */
+    public long getMainThreadWriteCount() {
+        return mMainThreadWrites.get();
+    }
+
+    /** The number of writes made on the main thread because they have to be. */
+    public long getRequiredMainThreadWriteCount() {
+        return mRequiredMainThreadWrites.get();
+    }
+
+    /** The number of reads and writes of {@code capability} so far. */
+    public long getCallCount(Capability capability) {
+        return mCalls.get(capability.ordinal());
+    }
+
+    @Override
+    public Audio audio() {
+        return mAudio;
+    }
+
+    @Override
+    public Torch torch() {
+        return mTorch;
+    }
+
+    @Override
+    public Wifi wifi() {
+        return mWifi;
+    }
+
+    @Override
+    public Bluetooth bluetooth() {
+        return mBluetooth;
+    }
+
+    @Override
+    public Settings settings() {
+        return mSettingsStore;
+    }
+
+    @Override
+    public Screens screens() {
+        return mScreens;
+    }
+
+    @Override
+    public CompletableFuture<Void> await(BooleanSupplier condition, long timeoutMs, String what) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (condition.getAsBoolean()) {
+            future.complete(null);
+            return future;
+        }
+        Runnable listener = () -> {
+            if (condition.getAsBoolean()) {
+                future.complete(null);
+            }
+        };
+        mListeners.add(listener);
+        ScheduledFuture<?> timeout = mTimer.schedule(() -> future.completeExceptionally(
+                new TimeoutException(what + " within " + timeoutMs + " ms")), timeoutMs, TimeUnit.MILLISECONDS);
+        future.whenComplete((result, error) -> {
+            mListeners.remove(listener);
+            timeout.cancel(false);
+        });
+        // A change between the first check and subscribing would otherwise be missed
+        listener.run();
+        return future;
+    }
+
+    private void read(Capability capability) {
+        mCalls.incrementAndGet(capability.ordinal());
+    }
+
+    private void write(Capability capability) {
+        write(capability, false);
+    }
+
+    private void write(Capability capability, boolean needsMainThread) {
+        int index = capability.ordinal();
+        mCalls.incrementAndGet(index);
+        if (Thread.currentThread() == mMainThread) {
+            (needsMainThread ? mRequiredMainThreadWrites : mMainThreadWrites).incrementAndGet();
+        }
+        long latency = mCallLatencyNanos[index];
+        if (latency > 0) {
+            LockSupport.parkNanos(latency);
+        }
+        if (mFailureRate[index] > 0 && mRandom.nextDouble() < mFailureRate[index]) {
+            throw new IllegalStateException("Simulated " + capability.name().toLowerCase() + " failure");
+        }
+    }
+
+    // Applies a change of state now and tells those waiting for it
+    private void change(Runnable update) {
+        synchronized (this) {
+            update.run();
+        }
+        for (Runnable listener : mListeners) {
+            listener.run();
+        }
+    }
+
+    // Applies a change of state once the capability's settle latency has passed
+    private void settle(Capability capability, Runnable update) {
+        long delay = mSettleMs[capability.ordinal()];
+        if (delay == 0) {
+            change(update);
+        } else {
+            mTimer.schedule(() -> change(update), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.buddy.assistant;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stands in for {@link DeviceHandlerFactory} on the host. Hardware and settings intents
+ * run their real handlers against a {@link SimulatedDeviceHal}; the rest, which launch
+ * apps or read contacts, succeed with a response naming the intent after a fixed latency.
+ */
+final class SimulatedHandlerFactory implements CommandHandler.Factory {
+
+    private final DeviceHal mHal;
+    private final long mLatencyMs;
+
+    /**
+     * @param latencyMs how long intents without a real handler take to take effect, or 0
+     *         for at once
+     */
+    SimulatedHandlerFactory(DeviceHal hal, long latencyMs) {
+        mHal = hal;
+        mLatencyMs = latencyMs;
+    }
+
+    @Override
+    public CommandHandler create(CommandIntent.Group group) {
+        switch (group) {
+            case CONNECTIVITY:
+                return new ConnectivityHandler(mHal);
+            case CAMERA:
+                return new CameraHandler(mHal);
+            case AUDIO:
+                return new AudioHandler(mHal);
+            case DISPLAY:
+                return new DisplayHandler(mHal);
+            default:
+                return new SimulatedHandler();
+        }
+    }
+
+    private final class SimulatedHandler implements CommandHandler {
+        @Override
+        public String handle(CommandIntent intent, Map<String, String> params) {
+            return "✅ " + intent + (params == null || params.isEmpty() ? "" : " " + params);
+        }
+
+        @Override
+        public CompletableFuture<String> handleAsync(CommandIntent intent, Map<String, String> params) {
+            if (mLatencyMs == 0) {
+                return CompletableFuture.completedFuture(handle(intent, params));
+            }
+            // Like a radio coming up, the runner's thread is free while waiting
+            Executor later = CompletableFuture.delayedExecutor(mLatencyMs, TimeUnit.MILLISECONDS);
+            return CompletableFuture.supplyAsync(() -> handle(intent, params), later);
+        }
+    }
+}